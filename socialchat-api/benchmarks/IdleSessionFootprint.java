@@ -0,0 +1,200 @@
+import com.sun.tools.attach.VirtualMachine;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXConnectorFactory;
+import javax.management.remote.JMXServiceURL;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retained heap per idle STOMP session on a running server.
+ *
+ * Opens N native WebSocket sessions against /ws, one user each, sends CONNECT and
+ * subscribes to the personal queues an idle client holds, then leaves them alone. The
+ * server heap is read over JMX after a full GC, once before the sessions are opened and
+ * once after; the difference divided by N is what one idle session retains. The attach
+ * API is used to reach the server, so it must run on this host as the same OS user.
+ *
+ * Tokens are minted here with the server's JWT secret, so no accounts are needed and the
+ * user ids do not have to exist. Keep --rate under the server's
+ * app.websocket.admission.node-connects-per-second, and --sessions under its
+ * max-sessions-per-node.
+ *
+ * Run from socialchat-api/ against a server started with and without
+ * app.websocket.low-footprint.enabled=true:
+ *
+ *   java benchmarks/IdleSessionFootprint.java --pid <server pid> [--sessions 10000]
+ *        [--url ws://localhost:8080/ws] [--secret <app.jwt.secret>] [--rate 400]
+ */
+public class IdleSessionFootprint {
+
+    private static final String DEFAULT_SECRET = "your256bitSecretKeyHereMinimum32CharactersLong";
+    private static final long FIRST_USER_ID = 1_000_000_000L;
+    private static final int WARMUP_SESSIONS = 200;
+    private static final long SETTLE_MILLIS = 5_000;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        if (!options.containsKey("pid")) {
+            System.err.println("usage: java benchmarks/IdleSessionFootprint.java --pid <server pid> "
+                    + "[--sessions 10000] [--url ws://localhost:8080/ws] [--secret <jwt secret>] [--rate 400]");
+            System.exit(1);
+        }
+
+        int sessions = Integer.parseInt(options.getOrDefault("sessions", "10000"));
+        URI url = URI.create(options.getOrDefault("url", "ws://localhost:8080/ws"));
+        byte[] key = Base64.getDecoder().decode(options.getOrDefault("secret", DEFAULT_SECRET));
+        int rate = Integer.parseInt(options.getOrDefault("rate", "400"));
+
+        HttpClient client = HttpClient.newHttpClient();
+        try (JMXConnector jmx = attach(options.get("pid"))) {
+            MemoryMXBean memory = ManagementFactory.newPlatformMXBeanProxy(
+                    jmx.getMBeanServerConnection(), ManagementFactory.MEMORY_MXBEAN_NAME, MemoryMXBean.class);
+
+            // Class loading, pools and caches are paid by the first sessions, not by each one
+            closeAll(open(client, url, key, FIRST_USER_ID, WARMUP_SESSIONS, rate));
+            Thread.sleep(SETTLE_MILLIS);
+            long before = usedHeapAfterGc(memory);
+
+            List<WebSocket> open = open(client, url, key, FIRST_USER_ID + WARMUP_SESSIONS, sessions, rate);
+            Thread.sleep(SETTLE_MILLIS);
+            long after = usedHeapAfterGc(memory);
+
+            System.out.printf("sessions open:        %,d of %,d%n", open.size(), sessions);
+            System.out.printf("heap before:          %,d KB%n", before / 1024);
+            System.out.printf("heap with sessions:   %,d KB%n", after / 1024);
+            if (!open.isEmpty()) {
+                System.out.printf("retained per session: %,d bytes%n", (after - before) / open.size());
+            }
+            closeAll(open);
+        }
+    }
+
+    private static List<WebSocket> open(HttpClient client, URI url, byte[] key, long firstUserId, int count, int rate)
+            throws Exception {
+        List<CompletableFuture<WebSocket>> pending = new ArrayList<>(count);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long next = System.nanoTime();
+
+        for (int i = 0; i < count; i++) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            next += intervalNanos;
+            pending.add(connect(client, url, token(key, firstUserId + i)));
+        }
+
+        List<WebSocket> open = new ArrayList<>(count);
+        int failed = 0;
+        for (CompletableFuture<WebSocket> future : pending) {
+            try {
+                open.add(future.get(30, TimeUnit.SECONDS));
+            } catch (Exception e) {
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            System.err.printf("%,d sessions failed to connect%n", failed);
+        }
+        return open;
+    }
+
+    private static CompletableFuture<WebSocket> connect(HttpClient client, URI url, String token) {
+        CompletableFuture<WebSocket> connected = new CompletableFuture<>();
+        WebSocket.Listener listener = new WebSocket.Listener() {
+            private final StringBuilder frame = new StringBuilder();
+
+            @Override
+            public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+                frame.append(data);
+                if (last) {
+                    String text = frame.toString();
+                    frame.setLength(0);
+                    if (text.startsWith("CONNECTED")) {
+                        connected.complete(webSocket);
+                    } else if (text.startsWith("ERROR")) {
+                        connected.completeExceptionally(new IllegalStateException(text.lines().findFirst().orElse("")));
+                    }
+                }
+                webSocket.request(1);
+                return null;
+            }
+
+            @Override
+            public void onError(WebSocket webSocket, Throwable error) {
+                connected.completeExceptionally(error);
+            }
+        };
+
+        return client.newWebSocketBuilder()
+                .buildAsync(url, listener)
+                .thenCompose(ws -> ws.sendText("CONNECT\naccept-version:1.2\nheart-beat:0,0\n"
+                        + "Authorization:Bearer " + token + "\n\n\0", true))
+                .thenCompose(ws -> connected)
+                .thenCompose(ws -> ws.sendText("SUBSCRIBE\nid:0\ndestination:/user/queue/notifications\n\n\0", true))
+                .thenCompose(ws -> ws.sendText("SUBSCRIBE\nid:1\ndestination:/user/queue/presence\n\n\0", true));
+    }
+
+    private static void closeAll(List<WebSocket> sockets) {
+        for (WebSocket socket : sockets) {
+            socket.sendText("DISCONNECT\n\n\0", true)
+                    .thenCompose(ws -> ws.sendClose(WebSocket.NORMAL_CLOSURE, ""));
+        }
+    }
+
+    private static long usedHeapAfterGc(MemoryMXBean memory) throws InterruptedException {
+        // Two passes, so objects freed by finalization/cleaners in the first are gone too
+        memory.gc();
+        Thread.sleep(500);
+        memory.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static JMXConnector attach(String pid) throws Exception {
+        VirtualMachine vm = VirtualMachine.attach(pid);
+        try {
+            String address = vm.startLocalManagementAgent();
+            return JMXConnectorFactory.connect(new JMXServiceURL(address));
+        } finally {
+            vm.detach();
+        }
+    }
+
+    private static String token(byte[] key, long userId) throws Exception {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        long now = System.currentTimeMillis() / 1000;
+        String header = encoder.encodeToString("{\"typ\":\"JWT\",\"alg\":\"HS256\"}".getBytes(StandardCharsets.UTF_8));
+        String claims = encoder.encodeToString(String.format(
+                "{\"jti\":\"%s\",\"sub\":\"idle%d\",\"userId\":%d,\"roles\":[\"ROLE_USER\"],\"type\":\"access\",\"iat\":%d,\"exp\":%d}",
+                UUID.randomUUID(), userId, userId, now, now + 3600).getBytes(StandardCharsets.UTF_8));
+
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        String signingInput = header + "." + claims;
+        return signingInput + "." + encoder.encodeToString(mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        return options;
+    }
+}
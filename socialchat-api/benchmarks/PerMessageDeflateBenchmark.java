@@ -0,0 +1,143 @@
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+/**
+ * Bandwidth versus CPU for permessage-deflate on a chat event stream.
+ *
+ * Builds a stream shaped like what one /ws session receives (chat messages with the
+ * nested sender, typing indicators, read receipts, reactions, presence) and compresses
+ * it the way RFC 7692 does: raw deflate, SYNC_FLUSH per message, trailing 00 00 ff ff
+ * stripped. Compares levels, context takeover and a minimum message size below which
+ * frames are sent uncompressed.
+ *
+ * Run from socialchat-api/: java benchmarks/PerMessageDeflateBenchmark.java [messages]
+ */
+public class PerMessageDeflateBenchmark {
+
+    private static final String[] WORDS = {
+            "hey", "are", "we", "still", "on", "for", "tonight", "I", "think", "so", "the", "meeting",
+            "moved", "to", "thursday", "lol", "sounds", "good", "can", "you", "send", "me", "that",
+            "link", "again", "thanks", "see", "you", "later", "what", "time", "works", "ok", "sure"
+    };
+    private static final String[] USERS = {"alice", "bob_smith", "carol", "dave99", "erin.k", "frank"};
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        List<byte[]> stream = buildStream(count, new Random(42));
+        long rawBytes = stream.stream().mapToLong(m -> m.length).sum();
+
+        System.out.printf("%d messages, %d bytes uncompressed, avg %d bytes/message%n%n",
+                count, rawBytes, rawBytes / count);
+        System.out.printf("%-34s %12s %8s %12s%n", "configuration", "bytes", "ratio", "ns/message");
+
+        run("level 1, context takeover", stream, 1, true, 0, rawBytes);
+        run("level 6, context takeover", stream, 6, true, 0, rawBytes);
+        run("level 9, context takeover", stream, 9, true, 0, rawBytes);
+        run("level 6, no context takeover", stream, 6, false, 0, rawBytes);
+        run("level 6, takeover, min 128 bytes", stream, 6, true, 128, rawBytes);
+        run("level 6, takeover, min 512 bytes", stream, 6, true, 512, rawBytes);
+        run("level 1, no takeover, min 256 bytes", stream, 1, false, 256, rawBytes);
+    }
+
+    private static void run(String name, List<byte[]> stream, int level, boolean takeover, int minSize, long rawBytes) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            compress(stream, level, takeover, minSize);
+        }
+
+        long bytes = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            bytes = compress(stream, level, takeover, minSize);
+        }
+        long nsPerMessage = (System.nanoTime() - start) / ((long) ROUNDS * stream.size());
+
+        System.out.printf("%-34s %12d %7.1f%% %12d%n", name, bytes, 100.0 * bytes / rawBytes, nsPerMessage);
+    }
+
+    private static long compress(List<byte[]> stream, int level, boolean takeover, int minSize) {
+        Deflater deflater = new Deflater(level, true);
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+
+        for (byte[] message : stream) {
+            if (message.length < minSize) {
+                total += message.length;
+                continue;
+            }
+            if (!takeover) {
+                deflater.reset();
+            }
+            deflater.setInput(message);
+            int written = 0;
+            int n;
+            do {
+                n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                written += n;
+            } while (n == buffer.length);
+            // RFC 7692 7.2.1: drop the 00 00 ff ff tail of the sync flush
+            total += written - 4;
+        }
+
+        deflater.end();
+        return total;
+    }
+
+    private static List<byte[]> buildStream(int count, Random random) {
+        List<byte[]> stream = new ArrayList<>(count);
+        LocalDateTime time = LocalDateTime.of(2026, 1, 22, 10, 30);
+        long messageId = 10_000;
+
+        for (int i = 0; i < count; i++) {
+            time = time.plusSeconds(random.nextInt(20));
+            int userIndex = random.nextInt(USERS.length);
+            String user = USERS[userIndex];
+            long conversationId = 40 + random.nextInt(3);
+            int kind = random.nextInt(100);
+
+            String json;
+            if (kind < 45) {
+                messageId++;
+                json = "{\"id\":" + messageId + ",\"conversationId\":" + conversationId
+                        + ",\"sender\":{\"id\":" + (userIndex + 1) + ",\"username\":\"" + user
+                        + "\",\"displayName\":\"" + Character.toUpperCase(user.charAt(0)) + user.substring(1)
+                        + "\",\"avatarUrl\":\"/api/media/avatars/" + user + ".jpg\",\"bio\":null,\"online\":true}"
+                        + ",\"content\":\"" + sentence(random) + "\",\"messageType\":\"TEXT\",\"mediaUrl\":null"
+                        + ",\"version\":" + messageId + ",\"editedAt\":null,\"deleted\":false,\"reactions\":{}"
+                        + ",\"createdAt\":\"" + time + "\"}";
+            } else if (kind < 75) {
+                json = "{\"conversationId\":" + conversationId + ",\"userId\":" + (userIndex + 1)
+                        + ",\"username\":\"" + user + "\",\"typing\":" + random.nextBoolean() + "}";
+            } else if (kind < 88) {
+                json = "{\"conversationId\":" + conversationId + ",\"userId\":" + (userIndex + 1)
+                        + ",\"readAt\":\"" + time + "\"}";
+            } else if (kind < 95) {
+                json = "{\"conversationId\":" + conversationId + ",\"reactions\":{\"" + (messageId - random.nextInt(5))
+                        + "\":{\"\\ud83d\\udc4d\":" + (1 + random.nextInt(6)) + ",\"\\u2764\\ufe0f\":" + random.nextInt(3) + "}}}";
+            } else {
+                json = "{\"userId\":" + (userIndex + 1) + ",\"username\":\"" + user + "\",\"online\":"
+                        + random.nextBoolean() + ",\"timestamp\":\"" + time + "\"}";
+            }
+            stream.add(json.getBytes(StandardCharsets.UTF_8));
+        }
+        return stream;
+    }
+
+    private static String sentence(Random random) {
+        int words = 2 + random.nextInt(random.nextInt(10) < 8 ? 8 : 40);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+}
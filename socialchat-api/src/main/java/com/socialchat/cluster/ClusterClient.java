@@ -0,0 +1,142 @@
+package com.socialchat.cluster;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.socialchat.dto.common.ApiResponse;
+import com.socialchat.exception.ApiException;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP between cluster nodes: health probes, forwarded REST requests and forwarded
+ * gateway commands. Every call carries {@value #TOKEN_HEADER} with the shared
+ * {@code app.cluster.secret}, which marks it as coming from a peer.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.cluster.enabled", havingValue = "true")
+public class ClusterClient {
+
+    public static final String TOKEN_HEADER = "X-Cluster-Token";
+    public static final String INTERNAL_PREFIX = "/internal/cluster";
+
+    // Hop-by-hop headers, and those HttpClient sets itself
+    private static final Set<String> SKIPPED_HEADERS = Set.of(
+            "connection", "content-length", "expect", "host", "keep-alive", "proxy-authenticate",
+            "proxy-authorization", "te", "trailer", "transfer-encoding", "upgrade", "http2-settings",
+            TOKEN_HEADER.toLowerCase(Locale.ROOT));
+
+    private final ObjectMapper objectMapper;
+    private final byte[] secret;
+    private final Duration probeTimeout;
+    private final Duration forwardTimeout;
+    private final HttpClient httpClient;
+
+    public ClusterClient(ObjectMapper objectMapper,
+                         @Value("${app.cluster.secret}") String secret,
+                         @Value("${app.cluster.probe-timeout-ms:1000}") long probeTimeoutMs,
+                         @Value("${app.cluster.forward-timeout-ms:10000}") long forwardTimeoutMs) {
+        if (secret.isBlank()) {
+            throw new IllegalStateException("app.cluster.secret must be set in cluster mode");
+        }
+        this.objectMapper = objectMapper;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.probeTimeout = Duration.ofMillis(probeTimeoutMs);
+        this.forwardTimeout = Duration.ofMillis(forwardTimeoutMs);
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(probeTimeout)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    public boolean isTrusted(String token) {
+        return token != null && MessageDigest.isEqual(secret, token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Completes with true when the peer answered its ping; never completes exceptionally.
+     */
+    public CompletableFuture<Boolean> ping(String baseUrl) {
+        HttpRequest request = internal(baseUrl + INTERNAL_PREFIX + "/ping", probeTimeout).GET().build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .thenApply(response -> response.statusCode() == 200)
+                .exceptionally(e -> {
+                    log.debug("Cluster probe of {} failed: {}", baseUrl, e.getMessage());
+                    return false;
+                });
+    }
+
+    /**
+     * Replays an incoming REST request against the owning node and returns its response.
+     */
+    public HttpResponse<byte[]> forward(String baseUrl, HttpServletRequest request, byte[] body)
+            throws IOException, InterruptedException {
+        String target = baseUrl + request.getRequestURI()
+                + (request.getQueryString() != null ? "?" + request.getQueryString() : "");
+        HttpRequest.Builder builder = internal(target, forwardTimeout)
+                .method(request.getMethod(), body.length == 0
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body));
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (!isSkipped(name)) {
+                for (String value : Collections.list(request.getHeaders(name))) {
+                    builder.header(name, value);
+                }
+            }
+        }
+        return httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /**
+     * POSTs a JSON body to an internal endpoint of the owning node and unwraps the
+     * ApiResponse; an error answer is rethrown as an {@link ApiException} with its code.
+     */
+    public <T> T post(String baseUrl, String path, Object body, TypeReference<ApiResponse<T>> type) {
+        try {
+            HttpRequest request = internal(baseUrl + INTERNAL_PREFIX + path, forwardTimeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            ApiResponse<T> result = objectMapper.readValue(response.body(), type);
+            if (!result.isSuccess()) {
+                throw result.getError() != null
+                        ? new ApiException(result.getError().getCode(), result.getError().getMessage())
+                        : new ApiException("CLUSTER_FORWARD_FAILED", "Owner node answered " + response.statusCode());
+            }
+            return result.getData();
+        } catch (IOException e) {
+            throw new ApiException("CLUSTER_FORWARD_FAILED", "Owner node unreachable: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException("CLUSTER_FORWARD_FAILED", "Interrupted while forwarding");
+        }
+    }
+
+    public static boolean isSkipped(String headerName) {
+        return SKIPPED_HEADERS.contains(headerName.toLowerCase(Locale.ROOT));
+    }
+
+    private HttpRequest.Builder internal(String url, Duration timeout) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(timeout)
+                .header(TOKEN_HEADER, new String(secret, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,59 @@
+package com.socialchat.cluster;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.socialchat.dto.chat.MessageRequest;
+import com.socialchat.dto.chat.MessageResponse;
+import com.socialchat.dto.cluster.ForwardedCommandRequest;
+import com.socialchat.dto.common.ApiResponse;
+import com.socialchat.gateway.GatewayCommands;
+import com.socialchat.service.ChatService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Runs STOMP chat commands on the conversation's owner node: locally when this node owns
+ * it, otherwise through the owner's internal endpoint.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = "app.cluster.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ClusterGatewayCommands implements GatewayCommands {
+
+    private final ChatService chatService;
+    private final ClusterMembership membership;
+    private final ClusterClient clusterClient;
+
+    @Override
+    public MessageResponse sendMessageFromWebSocket(Long conversationId, Long userId, MessageRequest request) {
+        String ownerUrl = membership.ownerUrl(conversationId);
+        if (ownerUrl == null) {
+            return chatService.sendMessageFromWebSocket(conversationId, userId, request);
+        }
+        return clusterClient.post(ownerUrl, "/conversations/" + conversationId + "/messages",
+                ForwardedCommandRequest.builder().userId(userId).message(request).build(),
+                new TypeReference<ApiResponse<MessageResponse>>() {});
+    }
+
+    @Override
+    public void markConversationAsReadFromWebSocket(Long conversationId, Long userId) {
+        String ownerUrl = membership.ownerUrl(conversationId);
+        if (ownerUrl == null) {
+            chatService.markConversationAsReadFromWebSocket(conversationId, userId);
+            return;
+        }
+        clusterClient.post(ownerUrl, "/conversations/" + conversationId + "/read",
+                ForwardedCommandRequest.builder().userId(userId).build(),
+                new TypeReference<ApiResponse<Void>>() {});
+    }
+
+    // Reads come from the database, which every node sees; the owner's buffer is only a shortcut
+    @Override
+    public List<MessageResponse> getMessagesAfterForUser(Long conversationId, Long userId, Long afterId, int limit) {
+        return chatService.getMessagesAfterForUser(conversationId, userId, afterId, limit);
+    }
+}
@@ -0,0 +1,219 @@
+package com.socialchat.cluster;
+
+import com.socialchat.service.ConversationRosterService;
+import com.socialchat.service.RecentMessageService;
+import com.socialchat.service.UserEventJournal;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cluster mode: every conversation has one owner node, chosen by a
+ * {@link ConsistentHashRing} over the live nodes.
+ *
+ * The owner holds the conversation's in-memory state (roster cache, recent-message
+ * buffer) and runs its sends, so their ordering and the buffers stay correct without
+ * cross-node invalidation. Other nodes forward conversation requests to it
+ * ({@link ConversationForwardingFilter}, {@link ClusterGatewayCommands}).
+ *
+ * Nodes are listed statically in {@code app.cluster.nodes}; each node probes the others
+ * and drops a peer from its ring after {@code failure-threshold} failed probes in a row.
+ * When the ring changes only the conversations on the arcs that moved change owner, and
+ * this node drops its cached state of every one of them, in either direction. Nodes may briefly
+ * disagree on membership: a forwarded request is always served where it lands, so a
+ * request is forwarded at most once.
+ *
+ * Nothing coordinates the nodes, so for up to one detection window (failure-threshold
+ * probes) the old and the new owner may both serve a conversation's writes. The database
+ * stays authoritative; the in-memory state is a cache, and it is fenced: a conversation
+ * this node acquired is served from the database only ({@link #isCacheable}) until
+ * {@code handoff-grace-ms}, longer than the detection window, has passed without another
+ * ring change. A node that just started fences everything the same way, since peers may
+ * still be serving its conversations.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.cluster.enabled", havingValue = "true")
+public class ClusterMembership {
+
+    @Getter
+    private final String nodeId;
+    private final Map<String, String> nodeUrls;
+    private final int virtualNodes;
+    private final int failureThreshold;
+
+    private final ClusterClient clusterClient;
+    private final ConversationRosterService rosterService;
+    private final RecentMessageService recentMessageService;
+    private final UserEventJournal journal;
+
+    private final long handoffGraceMs;
+
+    private final Map<String, Integer> failures = new ConcurrentHashMap<>();
+    private volatile ConsistentHashRing ring;
+    // Rings in effect since the last settled moment; caching needs ownership in all of them
+    private volatile List<ConsistentHashRing> unsettledRings;
+    private volatile long settledAtMs;
+
+    public ClusterMembership(@Value("${app.cluster.node-id}") String nodeId,
+                             @Value("${app.cluster.nodes}") String nodes,
+                             @Value("${app.cluster.virtual-nodes:160}") int virtualNodes,
+                             @Value("${app.cluster.failure-threshold:3}") int failureThreshold,
+                             @Value("${app.cluster.probe-interval-ms:2000}") long probeIntervalMs,
+                             @Value("${app.cluster.probe-timeout-ms:1000}") long probeTimeoutMs,
+                             @Value("${app.cluster.handoff-grace-ms:0}") long handoffGraceMs,
+                             ClusterClient clusterClient,
+                             ConversationRosterService rosterService,
+                             RecentMessageService recentMessageService,
+                             UserEventJournal journal,
+                             MeterRegistry meterRegistry) {
+        this.nodeId = nodeId;
+        this.nodeUrls = parseNodes(nodes);
+        if (!nodeUrls.containsKey(nodeId)) {
+            throw new IllegalStateException("app.cluster.node-id '" + nodeId + "' is not listed in app.cluster.nodes");
+        }
+        this.virtualNodes = Math.max(1, virtualNodes);
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.clusterClient = clusterClient;
+        this.rosterService = rosterService;
+        this.recentMessageService = recentMessageService;
+        this.journal = journal;
+        // Every listed node counts as live until probes say otherwise
+        this.ring = new ConsistentHashRing(nodeUrls.keySet(), this.virtualNodes);
+
+        long detectionWindowMs = this.failureThreshold * (probeIntervalMs + probeTimeoutMs);
+        this.handoffGraceMs = handoffGraceMs > detectionWindowMs ? handoffGraceMs : 2 * detectionWindowMs;
+        // Owns nothing: no conversation is cacheable until the first grace period has passed
+        this.unsettledRings = List.of(new ConsistentHashRing(Set.of(), this.virtualNodes));
+        this.settledAtMs = System.currentTimeMillis() + this.handoffGraceMs;
+
+        Gauge.builder("cluster.nodes.live", this, m -> m.ring.getNodes().size())
+                .description("Nodes in this node's consistent-hash ring")
+                .register(meterRegistry);
+    }
+
+    @Value("${app.websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @PostConstruct
+    void init() {
+        rosterService.setOwnershipFilter(this::isCacheable);
+        recentMessageService.setOwnershipFilter(this::isCacheable);
+        // Owners journal conversation events, and any node may publish notifications and presence
+        journal.setCoverageCheck(() -> ring.getNodes().size() == 1);
+        if (!"relay".equalsIgnoreCase(brokerMode)) {
+            // Owners push through the broker; without the relay only the owner's own sessions would see it
+            log.warn("Cluster mode without app.websocket.broker.mode=relay: pushes reach only sessions on the owner node");
+        }
+        log.info("Cluster mode: node {} of {}, handoff grace {} ms", nodeId, nodeUrls.keySet(), handoffGraceMs);
+    }
+
+    public boolean isLocal(Long conversationId) {
+        String owner = ring.ownerOf(conversationId);
+        return owner == null || owner.equals(nodeId);
+    }
+
+    /**
+     * Whether this node may hold in-memory state for the conversation: it owns it, and has
+     * owned it through every ring change of the last grace period.
+     */
+    public boolean isCacheable(Long conversationId) {
+        if (!isLocal(conversationId)) {
+            return false;
+        }
+        if (System.currentTimeMillis() >= settledAtMs) {
+            return true;
+        }
+        for (ConsistentHashRing unsettled : unsettledRings) {
+            if (!nodeId.equals(unsettled.ownerOf(conversationId))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Base URL of the owning node, or null when this node owns the conversation.
+     */
+    public String ownerUrl(Long conversationId) {
+        String owner = ring.ownerOf(conversationId);
+        return owner == null || owner.equals(nodeId) ? null : nodeUrls.get(owner);
+    }
+
+    @Scheduled(fixedDelayString = "${app.cluster.probe-interval-ms:2000}")
+    public void probe() {
+        List<String> peers = new ArrayList<>(nodeUrls.keySet());
+        peers.remove(nodeId);
+        List<CompletableFuture<Boolean>> results = new ArrayList<>(peers.size());
+        for (String peer : peers) {
+            results.add(clusterClient.ping(nodeUrls.get(peer)));
+        }
+
+        Set<String> live = new TreeSet<>();
+        live.add(nodeId);
+        for (int i = 0; i < peers.size(); i++) {
+            String peer = peers.get(i);
+            if (results.get(i).join()) {
+                failures.remove(peer);
+                live.add(peer);
+            } else if (failures.merge(peer, 1, Integer::sum) < failureThreshold && ring.getNodes().contains(peer)) {
+                live.add(peer);
+            }
+        }
+
+        if (!live.equals(ring.getNodes())) {
+            rebalance(live);
+        }
+    }
+
+    private void rebalance(Set<String> live) {
+        ConsistentHashRing previous = ring;
+        long now = System.currentTimeMillis();
+        List<ConsistentHashRing> unsettled = new ArrayList<>(now < settledAtMs ? unsettledRings : List.of());
+        unsettled.add(previous);
+        // Fence before the swap, so acquired conversations are never cacheable in between
+        unsettledRings = List.copyOf(unsettled);
+        settledAtMs = now + handoffGraceMs;
+        ring = new ConsistentHashRing(live, virtualNodes);
+        // Anything whose owner changed is dropped, including conversations that moved here:
+        // the old owner may have changed them, so the new owner reloads on first use
+        int rosters = rosterService.evictIf(id -> ownerChanged(previous, id));
+        int buffers = recentMessageService.evictIf(id -> ownerChanged(previous, id));
+        log.info("Cluster membership changed from {} to {}; dropped {} rosters and {} message buffers that changed owner",
+                previous.getNodes(), live, rosters, buffers);
+    }
+
+    private boolean ownerChanged(ConsistentHashRing previous, Long conversationId) {
+        return !Objects.equals(previous.ownerOf(conversationId), ring.ownerOf(conversationId));
+    }
+
+    // "a=http://10.0.0.1:8080,b=http://10.0.0.2:8080"
+    private static Map<String, String> parseNodes(String nodes) {
+        Map<String, String> urls = new LinkedHashMap<>();
+        for (String entry : nodes.split(",")) {
+            String trimmed = entry.trim();
+            int eq = trimmed.indexOf('=');
+            if (eq <= 0 || eq == trimmed.length() - 1) {
+                throw new IllegalStateException("Invalid app.cluster.nodes entry: '" + trimmed + "' (expected id=url)");
+            }
+            urls.put(trimmed.substring(0, eq).trim(), trimmed.substring(eq + 1).trim().replaceAll("/+$", ""));
+        }
+        return urls;
+    }
+}
@@ -0,0 +1,73 @@
+package com.socialchat.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent-hash ring mapping conversation ids to node ids.
+ *
+ * Each node is placed at {@code virtualNodes} points on a 64-bit ring and a key belongs
+ * to the first point at or after its hash. Adding or removing a node therefore moves only
+ * the keys on the arcs that node gains or loses, about 1/N of them, and every other key
+ * keeps its owner. Placement depends only on the node ids, so nodes that agree on the
+ * membership agree on every owner without talking to each other.
+ */
+public final class ConsistentHashRing {
+
+    private final NavigableMap<Long, String> points = new TreeMap<>();
+    private final Set<String> nodes;
+
+    public ConsistentHashRing(Collection<String> nodeIds, int virtualNodes) {
+        this.nodes = Set.copyOf(new TreeSet<>(nodeIds));
+        for (String nodeId : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                // On the rare collision the lower node id wins, on every node alike
+                points.merge(hash(nodeId + "#" + i), nodeId, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+            }
+        }
+    }
+
+    /**
+     * The owning node, or null when the ring is empty.
+     */
+    public String ownerOf(long key) {
+        if (points.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> point = points.ceilingEntry(mix(key));
+        return point != null ? point.getValue() : points.firstEntry().getValue();
+    }
+
+    public Set<String> getNodes() {
+        return nodes;
+    }
+
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    // FNV-1a over the UTF-8 bytes, then mixed so that similar ids spread over the ring
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    // MurmurHash3 fmix64: sequential conversation ids land far apart
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
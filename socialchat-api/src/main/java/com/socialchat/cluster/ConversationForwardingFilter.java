@@ -0,0 +1,105 @@
+package com.socialchat.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.socialchat.dto.common.ApiResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sends conversation REST requests ({@code /api/chat/conversations/{id}/...}) to the
+ * conversation's owner node and relays the answer. Runs after Spring Security, so only
+ * authenticated requests travel; the owner authenticates them again from the same
+ * Authorization header. Requests that arrive from a peer are always served locally.
+ *
+ * When the owner cannot be reached the client gets 503 with a Retry-After; once probes
+ * drop the owner from the ring, its conversations are served by their new owners.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.cluster.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ConversationForwardingFilter extends OncePerRequestFilter {
+
+    private static final Pattern CONVERSATION_PATH = Pattern.compile("^/api/chat/conversations/(\\d+)(/.*)?$");
+
+    private final ClusterMembership membership;
+    private final ClusterClient clusterClient;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !CONVERSATION_PATH.matcher(request.getRequestURI()).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        Matcher matcher = CONVERSATION_PATH.matcher(request.getRequestURI());
+        String ownerUrl = matcher.matches() && !clusterClient.isTrusted(request.getHeader(ClusterClient.TOKEN_HEADER))
+                ? membership.ownerUrl(Long.valueOf(matcher.group(1)))
+                : null;
+        if (ownerUrl == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        HttpResponse<byte[]> forwarded;
+        try {
+            forwarded = clusterClient.forward(ownerUrl, request, request.getInputStream().readAllBytes());
+        } catch (IOException e) {
+            log.warn("Owner {} of {} unreachable: {}", ownerUrl, request.getRequestURI(), e.getMessage());
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", "2");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(),
+                    ApiResponse.error("OWNER_UNAVAILABLE", "Conversation owner is unavailable, retry shortly"));
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+
+        response.setStatus(forwarded.statusCode());
+        for (Map.Entry<String, List<String>> header : forwarded.headers().map().entrySet()) {
+            String name = header.getKey();
+            // CORS and security headers were already written by this node's filter chain
+            if (ClusterClient.isSkipped(name) || name.startsWith(":")
+                    || name.toLowerCase(Locale.ROOT).startsWith("access-control-")
+                    || name.equalsIgnoreCase("vary")) {
+                continue;
+            }
+            boolean first = true;
+            for (String value : header.getValue()) {
+                if (first) {
+                    response.setHeader(name, value);
+                    first = false;
+                } else {
+                    response.addHeader(name, value);
+                }
+            }
+        }
+        response.getOutputStream().write(forwarded.body());
+    }
+}
@@ -0,0 +1,41 @@
+package com.socialchat.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * In-process STOMP broker for tests and single-box deployments.
+ * Activate with the "embedded-broker" profile; the broker relay in WebSocketConfig
+ * then connects to it exactly as it would to an external broker.
+ */
+@Slf4j
+@org.springframework.context.annotation.Configuration
+@Profile("embedded-broker")
+public class EmbeddedBrokerConfig {
+
+    @Value("${app.websocket.broker.relay-host:localhost}")
+    private String host;
+
+    @Value("${app.websocket.broker.relay-port:61613}")
+    private int port;
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public EmbeddedActiveMQ embeddedStompBroker() throws Exception {
+        Configuration configuration = new ConfigurationImpl()
+                .setPersistenceEnabled(false)
+                .setSecurityEnabled(false)
+                // /topic/** is publish-subscribe, /queue/** point-to-point
+                .addAcceptorConfiguration("stomp", "tcp://" + host + ":" + port
+                        + "?protocols=STOMP;anycastPrefix=/queue/;multicastPrefix=/topic/");
+
+        EmbeddedActiveMQ broker = new EmbeddedActiveMQ();
+        broker.setConfiguration(configuration);
+        log.info("Embedded STOMP broker configured on {}:{}", host, port);
+        return broker;
+    }
+}
@@ -0,0 +1,33 @@
+package com.socialchat.config;
+
+import com.socialchat.websocket.IndexedSubscriptionRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+
+/**
+ * Swaps the in-process broker's subscription registry for IndexedSubscriptionRegistry.
+ * Enabled with app.websocket.broker.mode=indexed (single node, high subscription counts).
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "app.websocket.broker.mode", havingValue = "indexed")
+public class IndexedBrokerConfig {
+
+    @Bean
+    public static BeanPostProcessor indexedSubscriptionRegistryInstaller() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof SimpleBrokerMessageHandler handler) {
+                    handler.setSubscriptionRegistry(new IndexedSubscriptionRegistry());
+                    log.info("In-process broker using indexed subscription registry");
+                }
+                return bean;
+            }
+        };
+    }
+}
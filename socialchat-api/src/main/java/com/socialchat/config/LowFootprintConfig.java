@@ -0,0 +1,54 @@
+package com.socialchat.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+/**
+ * Shrinks the per-connection buffers Tomcat keeps for every open WebSocket, for nodes that
+ * hold many mostly idle sessions. Enabled with app.websocket.low-footprint.enabled=true;
+ * the same switch also turns off the SockJS fallback (WebSocketConfig) and
+ * permessage-deflate (CompressionHandshakeHandler). See the README for the per-session
+ * budget and benchmarks/IdleSessionFootprint.java for how it is measured.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "app.websocket.low-footprint.enabled", havingValue = "true")
+public class LowFootprintConfig {
+
+    // Not shrunk: inbound frames are delivered whole, so this must fit the largest chat SEND
+    // frame (see app.websocket.text-buffer-chars)
+    @Value("${app.websocket.text-buffer-chars:12288}")
+    private int textBufferChars;
+
+    // Clients only send text frames; binary frames are the CBOR downlink
+    @Value("${app.websocket.low-footprint.binary-buffer-bytes:1024}")
+    private int binaryBufferBytes;
+
+    @Value("${app.websocket.low-footprint.socket-buffer-bytes:4096}")
+    private int socketBufferBytes;
+
+    @Bean
+    public ServletServerContainerFactoryBean webSocketContainer() {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize(textBufferChars);
+        container.setMaxBinaryMessageBufferSize(binaryBufferBytes);
+        log.info("Low-footprint WebSocket mode: text buffer {} chars, binary buffer {} bytes, socket buffers {} bytes",
+                textBufferChars, binaryBufferBytes, socketBufferBytes);
+        return container;
+    }
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> lowFootprintSocketBuffers() {
+        // Tomcat's per-connection application buffers default to 8 KB each way
+        return factory -> factory.addConnectorCustomizers(connector -> {
+            connector.setProperty("socket.appReadBufSize", String.valueOf(socketBufferBytes));
+            connector.setProperty("socket.appWriteBufSize", String.valueOf(socketBufferBytes));
+        });
+    }
+}
@@ -0,0 +1,57 @@
+package com.socialchat.config;
+
+import com.socialchat.rsocket.OriginCheckingRSocketServerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.rsocket.RSocketProperties;
+import org.springframework.boot.rsocket.messaging.RSocketStrategiesCustomizer;
+import org.springframework.boot.rsocket.server.RSocketServerFactory;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.boot.web.server.Ssl;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * RSocket endpoint (see RSocketChatController). Boot runs it as a standalone server on
+ * spring.rsocket.server.port; the access token travels in the SETUP frame as bearer
+ * metadata and is exposed to handlers as the {@value #BEARER_HEADER} header.
+ *
+ * The server checks handshake origins like /ws. Under the ssl profile it refuses to
+ * start without spring.rsocket.server.ssl, since tokens would otherwise travel in
+ * plaintext.
+ */
+@Configuration
+public class RSocketConfig {
+
+    public static final String BEARER_HEADER = "bearer";
+
+    // Same mime type Spring Security's RSocket support uses for bearer tokens
+    public static final MimeType BEARER_MIME_TYPE = MimeTypeUtils.parseMimeType("message/x.rsocket.authentication.bearer.v0");
+
+    @Value("${app.cors.allowed-origins:*}")
+    private String allowedOrigins;
+
+    @Bean
+    public RSocketStrategiesCustomizer bearerMetadataExtractor() {
+        return strategies -> strategies.metadataExtractorRegistry(
+                registry -> registry.metadataToExtract(BEARER_MIME_TYPE, String.class, BEARER_HEADER));
+    }
+
+    @Bean
+    public RSocketServerFactory rSocketServerFactory(RSocketProperties properties, ObjectProvider<SslBundles> sslBundles,
+                                                     Environment environment) {
+        boolean isProd = Arrays.asList(environment.getActiveProfiles()).contains("ssl");
+        if (isProd && !Ssl.isEnabled(properties.getServer().getSsl())) {
+            throw new IllegalStateException("The ssl profile requires spring.rsocket.server.ssl.enabled=true");
+        }
+
+        List<String> origins = isProd ? Arrays.asList(allowedOrigins.split(",")) : List.of("*");
+        return new OriginCheckingRSocketServerFactory(properties.getServer(), sslBundles.getIfAvailable(), origins);
+    }
+}
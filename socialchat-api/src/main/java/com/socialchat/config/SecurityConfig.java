@@ -3,6 +3,7 @@ package com.socialchat.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.socialchat.dto.common.ApiResponse;
 import com.socialchat.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
@@ -63,6 +64,8 @@ public class SecurityConfig {
 
                 // Authorization rules
                 .authorizeHttpRequests(auth -> auth
+                        // SSE streams finish on an async dispatch of an already authorized request
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(
                                 "/api/auth/register",
                                 "/api/auth/login",
@@ -72,7 +75,12 @@ public class SecurityConfig {
                                 "/api-docs/**",
                                 "/swagger-ui/**",
                                 "/swagger-ui.html",
-                                "/websocket-test.html"
+                                "/websocket-test.html",
+                                // Actuator is served only on the management port, bound to loopback by default
+                                "/actuator/health",
+                                "/actuator/prometheus",
+                                // Node-to-node calls in cluster mode; checked against app.cluster.secret
+                                "/internal/cluster/**"
                         ).permitAll()
                         .anyRequest().authenticated()
                 )
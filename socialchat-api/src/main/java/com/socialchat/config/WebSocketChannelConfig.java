@@ -0,0 +1,140 @@
+package com.socialchat.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for the STOMP client inbound and outbound channels.
+ *
+ * Inbound frames run @MessageMapping handlers that hit the database. With the default
+ * pools a few slow queries can occupy every inbound thread, so the pools are sized
+ * explicitly here. In "virtual" mode each inbound frame gets its own virtual thread and a
+ * blocked JDBC call parks only that frame. Queue depth and active threads are published
+ * as websocket.channel.* gauges.
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+public class WebSocketChannelConfig implements WebSocketMessageBrokerConfigurer {
+
+    private static final String MODE_VIRTUAL = "virtual";
+
+    private final MeterRegistry meterRegistry;
+
+    // "pool" (bounded platform threads) or "virtual" (virtual thread per inbound frame)
+    @Value("${app.websocket.inbound.mode:pool}")
+    private String inboundMode;
+
+    @Value("${app.websocket.inbound.pool-size:64}")
+    private int inboundPoolSize;
+
+    @Value("${app.websocket.inbound.queue-capacity:10000}")
+    private int inboundQueueCapacity;
+
+    @Value("${app.websocket.outbound.pool-size:32}")
+    private int outboundPoolSize;
+
+    @Value("${app.websocket.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity;
+
+    @Value("${app.websocket.executor.keep-alive-seconds:60}")
+    private int keepAliveSeconds;
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        if (MODE_VIRTUAL.equalsIgnoreCase(inboundMode)) {
+            registration.executor(new InFlightTrackingExecutor(
+                    new VirtualThreadTaskExecutor("ws-inbound-"), "inbound", meterRegistry));
+            log.info("WebSocket inbound channel using virtual threads");
+            return;
+        }
+
+        ThreadPoolTaskExecutor executor = createPool("ws-inbound-", inboundPoolSize, inboundQueueCapacity);
+        bindPoolMetrics(executor, "inbound");
+        registration.taskExecutor(executor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        ThreadPoolTaskExecutor executor = createPool("ws-outbound-", outboundPoolSize, outboundQueueCapacity);
+        bindPoolMetrics(executor, "outbound");
+        registration.taskExecutor(executor);
+    }
+
+    // ThreadPoolExecutor adds threads beyond core only once the queue is full, so core is
+    // the real limit: core == max, and idle threads time out instead of staying parked
+    private ThreadPoolTaskExecutor createPool(String prefix, int poolSize, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(prefix);
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setKeepAliveSeconds(keepAliveSeconds);
+        executor.setAllowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private void bindPoolMetrics(ThreadPoolTaskExecutor executor, String channel) {
+        // Gauges read lazily; the pool itself is initialized later by the messaging configuration
+        Gauge.builder("websocket.channel.queue.depth", executor, ThreadPoolTaskExecutor::getQueueSize)
+                .tag("channel", channel)
+                .description("Frames waiting for an executor thread")
+                .register(meterRegistry);
+        Gauge.builder("websocket.channel.active.threads", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .tag("channel", channel)
+                .description("Threads currently processing frames")
+                .register(meterRegistry);
+        Gauge.builder("websocket.channel.pool.size", executor, ThreadPoolTaskExecutor::getPoolSize)
+                .tag("channel", channel)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Counts frames in flight on an unbounded executor. Virtual threads have no queue,
+     * so the in-flight count is reported as active threads and queue depth is always zero.
+     */
+    private static final class InFlightTrackingExecutor implements Executor {
+
+        private final Executor delegate;
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        InFlightTrackingExecutor(Executor delegate, String channel, MeterRegistry meterRegistry) {
+            this.delegate = delegate;
+            Gauge.builder("websocket.channel.active.threads", inFlight, AtomicInteger::get)
+                    .tag("channel", channel)
+                    .description("Frames currently being processed")
+                    .register(meterRegistry);
+            Gauge.builder("websocket.channel.queue.depth", () -> 0)
+                    .tag("channel", channel)
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            inFlight.incrementAndGet();
+            try {
+                delegate.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            } catch (RuntimeException e) {
+                inFlight.decrementAndGet();
+                throw e;
+            }
+        }
+    }
+}
@@ -1,33 +1,126 @@
 package com.socialchat.config;
 
+import com.socialchat.websocket.CompressionHandshakeHandler;
+import com.socialchat.websocket.IdleSessionReaper;
+import com.socialchat.websocket.PayloadEncodingInterceptor;
+import com.socialchat.websocket.SlowConsumerGuard;
+import com.socialchat.websocket.StompErrorHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.core.env.Environment;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
 
 import java.util.Arrays;
 
+@Slf4j
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private static final String BROKER_MODE_RELAY = "relay";
+
     private final Environment environment;
+    private final CompressionHandshakeHandler compressionHandshakeHandler;
+    private final SlowConsumerGuard slowConsumerGuard;
+    private final StompErrorHandler stompErrorHandler;
+    private final IdleSessionReaper idleSessionReaper;
+    private final TaskScheduler messageBrokerTaskScheduler;
 
     @Value("${app.cors.allowed-origins:*}")
     private String allowedOrigins;
 
-    public WebSocketConfig(Environment environment) {
+    // Native WebSocket only; SockJS session state is not worth it on nodes sized for idle sessions
+    @Value("${app.websocket.low-footprint.enabled:false}")
+    private boolean lowFootprint;
+
+    // "simple" keeps subscriptions in this JVM; "relay" forwards to an external STOMP broker;
+    // "indexed" is the in-process broker with IndexedSubscriptionRegistry (see IndexedBrokerConfig)
+    @Value("${app.websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${app.websocket.broker.relay-host:localhost}")
+    private String relayHost;
+
+    @Value("${app.websocket.broker.relay-port:61613}")
+    private int relayPort;
+
+    @Value("${app.websocket.broker.client-login:guest}")
+    private String clientLogin;
+
+    @Value("${app.websocket.broker.client-passcode:guest}")
+    private String clientPasscode;
+
+    @Value("${app.websocket.broker.system-login:guest}")
+    private String systemLogin;
+
+    @Value("${app.websocket.broker.system-passcode:guest}")
+    private String systemPasscode;
+
+    @Value("${app.websocket.broker.virtual-host:}")
+    private String virtualHost;
+
+    // In-process broker heartbeats: how often the server sends one, and how often it expects one
+    // from the client; the client's CONNECT heart-beat header negotiates the actual values
+    @Value("${app.websocket.heartbeat.send-interval-ms:10000}")
+    private long heartbeatSendIntervalMs;
+
+    @Value("${app.websocket.heartbeat.receive-interval-ms:10000}")
+    private long heartbeatReceiveIntervalMs;
+
+    // The scheduler is created by the broker configuration this class feeds, hence @Lazy
+    public WebSocketConfig(Environment environment, CompressionHandshakeHandler compressionHandshakeHandler,
+                           SlowConsumerGuard slowConsumerGuard, StompErrorHandler stompErrorHandler,
+                           IdleSessionReaper idleSessionReaper,
+                           @Qualifier("messageBrokerTaskScheduler") @Lazy TaskScheduler messageBrokerTaskScheduler) {
         this.environment = environment;
+        this.compressionHandshakeHandler = compressionHandshakeHandler;
+        this.slowConsumerGuard = slowConsumerGuard;
+        this.stompErrorHandler = stompErrorHandler;
+        this.idleSessionReaper = idleSessionReaper;
+        this.messageBrokerTaskScheduler = messageBrokerTaskScheduler;
     }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic", "/queue");
+        if (BROKER_MODE_RELAY.equalsIgnoreCase(brokerMode)) {
+            StompBrokerRelayRegistration relay = config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(clientLogin)
+                    .setClientPasscode(clientPasscode)
+                    .setSystemLogin(systemLogin)
+                    .setSystemPasscode(systemPasscode)
+                    // Share user sessions between nodes so /user destinations resolve cluster-wide
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+
+            if (!virtualHost.isBlank()) {
+                relay.setVirtualHost(virtualHost);
+            }
+            log.info("STOMP broker relay enabled: {}:{}", relayHost, relayPort);
+        } else {
+            // One heartbeat task for all sessions; a client silent for 3x the negotiated interval is disconnected
+            config.enableSimpleBroker("/topic", "/queue")
+                    .setHeartbeatValue(new long[]{heartbeatSendIntervalMs, heartbeatReceiveIntervalMs})
+                    .setTaskScheduler(messageBrokerTaskScheduler);
+        }
         config.setApplicationDestinationPrefixes("/app");
         config.setUserDestinationPrefix("/user");
+        // Frames reach each session in publish order, which journal-resume relies on. Also
+        // installs the callback interceptor that FrameBatchingInterceptor's per-session lanes need
+        config.setPreservePublishOrder(true);
     }
 
     @Override
@@ -37,12 +130,43 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         String[] origins = isProd ? allowedOrigins.split(",") : new String[]{"*"};
 
         // WebSocket endpoint with SockJS fallback
-        registry.addEndpoint("/ws")
-                .setAllowedOriginPatterns(origins)
-                .withSockJS();
+        if (!lowFootprint) {
+            registry.addEndpoint("/ws")
+                    .setAllowedOriginPatterns(origins)
+                    .withSockJS();
+        }
 
-        // Native WebSocket endpoint (WSS in prod, WS in dev)
+        // Native WebSocket endpoint (WSS in prod, WS in dev), permessage-deflate when negotiated
         registry.addEndpoint("/ws")
+                .setHandshakeHandler(compressionHandshakeHandler)
+                .addInterceptors(PayloadEncodingInterceptor.nativeTransportMarker())
                 .setAllowedOriginPatterns(origins);
+
+        // ERROR frames for rejected CONNECTs carry a retry-after hint
+        registry.setErrorHandler(stompErrorHandler);
+    }
+
+    /**
+     * Inbound frames are delivered whole and Tomcat closes the session (1009) on one larger
+     * than its text buffer, so the buffer must fit the largest valid SEND. Low-footprint
+     * mode defines its own container (LowFootprintConfig).
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.websocket.low-footprint.enabled", havingValue = "false", matchIfMissing = true)
+    public ServletServerContainerFactoryBean webSocketContainer(
+            @Value("${app.websocket.text-buffer-chars:12288}") int textBufferChars) {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize(textBufferChars);
+        return container;
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Added first so it wraps innermost and sees the session SlowConsumerGuard decorated:
+        // its pings share the per-session send queue
+        registration.addDecoratorFactory(idleSessionReaper);
+        registration.addDecoratorFactory(compressionHandshakeHandler.sessionTracker());
+        // Bounded, prioritized send queue per session; sends never block broker threads
+        registration.addDecoratorFactory(slowConsumerGuard);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,45 @@
+package com.socialchat.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.socialchat.websocket.CborAttachingMessageConverter;
+import com.socialchat.websocket.FrameBatchingInterceptor;
+import com.socialchat.websocket.PayloadEncodingInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+
+import java.util.List;
+
+/**
+ * Per-session shaping of outbound frames. Clients send {@code payload-format: cbor} in the
+ * CONNECT frame to receive CBOR instead of JSON, and subscribe to /user/queue/batch to
+ * receive their events bundled into array frames. Batching runs first so a CBOR session
+ * gets its batches encoded as a whole.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WebSocketEncodingConfig implements WebSocketMessageBrokerConfigurer {
+
+    private final FrameBatchingInterceptor frameBatchingInterceptor;
+    private final PayloadEncodingInterceptor payloadEncodingInterceptor;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        // Ahead of Boot's JSON converter, which it replaces for object payloads
+        messageConverters.add(0, new CborAttachingMessageConverter(objectMapper, payloadEncodingInterceptor::isCborInUse));
+        return true;
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(frameBatchingInterceptor, payloadEncodingInterceptor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(frameBatchingInterceptor, payloadEncodingInterceptor);
+    }
+}
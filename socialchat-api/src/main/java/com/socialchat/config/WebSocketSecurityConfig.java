@@ -3,8 +3,11 @@ package com.socialchat.config;
 import com.socialchat.security.JwtAuthenticationToken;
 import com.socialchat.security.JwtClaims;
 import com.socialchat.security.JwtService;
+import com.socialchat.service.ConnectionAdmissionService;
 import com.socialchat.service.TokenRevocationService;
 import com.socialchat.service.WebSocketAuthorizationService;
+import com.socialchat.websocket.DestinationRouter;
+import com.socialchat.websocket.DestinationRouter.Route;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Configuration;
@@ -21,8 +24,8 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Configuration
@@ -31,15 +34,17 @@ import java.util.regex.Pattern;
 public class WebSocketSecurityConfig implements WebSocketMessageBrokerConfigurer {
 
     private static final String BEARER_PREFIX = "Bearer ";
+    private static final String AUTHORIZATION_HEADER = "Authorization";
+    private static final List<SimpleGrantedAuthority> DEFAULT_AUTHORITIES = List.of(new SimpleGrantedAuthority("ROLE_USER"));
 
-    // FIXED: Corrected pattern to match actual subscription paths
-    private static final Pattern CONVERSATION_TOPIC_PATTERN = Pattern.compile("/topic/conversations/(\\d+)(?:/messages|/typing|/read-receipts)?");
-    private static final Pattern CONVERSATION_APP_PATTERN = Pattern.compile("/app/chat/(\\d+)(?:/message|/typing|/read)?");
-    private static final Pattern USER_QUEUE_PATTERN = Pattern.compile("/user/queue/.*");
+    // Role sets are few; sessions share the authority objects for their set instead of allocating their own
+    private final Map<List<String>, List<SimpleGrantedAuthority>> authorityCache = new ConcurrentHashMap<>();
 
     private final JwtService jwtService;
     private final TokenRevocationService tokenRevocationService;
     private final WebSocketAuthorizationService authorizationService;
+    private final DestinationRouter destinationRouter;
+    private final ConnectionAdmissionService admissionService;
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
@@ -72,7 +77,10 @@ public class WebSocketSecurityConfig implements WebSocketMessageBrokerConfigurer
     }
 
     private Message<?> handleConnect(Message<?> message, StompHeaderAccessor accessor) {
-        String authHeader = accessor.getFirstNativeHeader("Authorization");
+        // Cheap node-wide checks first, so a reconnect storm does not pay for token parsing
+        admissionService.admitToNode();
+
+        String authHeader = accessor.getFirstNativeHeader(AUTHORIZATION_HEADER);
 
         if (authHeader == null || !authHeader.startsWith(BEARER_PREFIX)) {
             log.warn("WebSocket CONNECT without Authorization header");
@@ -89,18 +97,16 @@ public class WebSocketSecurityConfig implements WebSocketMessageBrokerConfigurer
                     return new IllegalArgumentException("Invalid or revoked token");
                 });
 
-        List<SimpleGrantedAuthority> authorities = claims.getRoles() != null
-                ? claims.getRoles().stream()
-                .map(SimpleGrantedAuthority::new)
-                .toList()
-                : List.of(new SimpleGrantedAuthority("ROLE_USER"));
-
         JwtAuthenticationToken auth = new JwtAuthenticationToken(
                 claims.getUserId(),
                 claims.getUsername(),
-                authorities
+                authoritiesFor(claims.getRoles())
         );
 
+        admissionService.admitUser(claims.getUserId());
+
+        // The principal outlives the session; the raw token does not need to
+        accessor.removeNativeHeader(AUTHORIZATION_HEADER);
         accessor.setUser(auth);
         log.debug("WebSocket authenticated: {} (id: {})", claims.getUsername(), claims.getUserId());
 
@@ -116,43 +122,43 @@ public class WebSocketSecurityConfig implements WebSocketMessageBrokerConfigurer
             throw new IllegalArgumentException("Invalid subscription request");
         }
 
-        log.debug("SUBSCRIBE request from {} to {}", auth.getUsername(), destination);
-
-        // Allow user-specific queues (notifications, presence, etc.)
-        if (USER_QUEUE_PATTERN.matcher(destination).matches()) {
-            return message;
-        }
-
-        // FIXED: Block public presence topic subscription
-        if (destination.equals("/topic/presence")) {
-            log.warn("User {} attempted to subscribe to public presence topic - denied", auth.getUsername());
-            throw new IllegalArgumentException("Public presence topic not allowed. Subscribe to /user/queue/presence for friends-only presence.");
-        }
-
-        // Allow public notifications topic (deprecated, but keeping for backwards compatibility)
-        if (destination.startsWith("/topic/notifications")) {
-            log.warn("User {} subscribed to deprecated public notifications topic", auth.getUsername());
-            return message;
-        }
-
-        // Validate conversation membership for conversation-specific topics
-        Matcher matcher = CONVERSATION_TOPIC_PATTERN.matcher(destination);
-        if (matcher.matches()) {
-            Long conversationId = Long.parseLong(matcher.group(1));
-
-            if (!authorizationService.isUserInConversation(auth.getUserId(), conversationId)) {
-                log.warn("User {} attempted to subscribe to conversation {} without membership",
-                        auth.getUsername(), conversationId);
-                throw new IllegalArgumentException("Not a member of this conversation");
+        Route route = destinationRouter.resolve(destination);
+        switch (route.kind()) {
+            // Allow user-specific queues (notifications, presence, etc.)
+            case USER_QUEUE -> {
+                return message;
             }
+            // One-shot replay of the user's own journal, answered by @SubscribeMapping
+            case REPLAY -> {
+                return message;
+            }
+            // FIXED: Block public presence topic subscription
+            case PUBLIC_PRESENCE -> {
+                log.warn("User {} attempted to subscribe to public presence topic - denied", auth.getUsername());
+                throw new IllegalArgumentException("Public presence topic not allowed. Subscribe to /user/queue/presence for friends-only presence.");
+            }
+            // Allow public notifications topic (deprecated, but keeping for backwards compatibility)
+            case LEGACY_NOTIFICATIONS -> {
+                log.warn("User {} subscribed to deprecated public notifications topic", auth.getUsername());
+                return message;
+            }
+            // Validate conversation membership for conversation-specific topics
+            case CONVERSATION_TOPIC -> {
+                long conversationId = route.conversationId();
+                if (!authorizationService.isUserInConversation(auth.getUserId(), conversationId)) {
+                    log.warn("User {} attempted to subscribe to conversation {} without membership",
+                            auth.getUsername(), conversationId);
+                    throw new IllegalArgumentException("Not a member of this conversation");
+                }
 
-            log.debug("User {} authorized to subscribe to conversation {}", auth.getUsername(), conversationId);
-            return message;
+                return message;
+            }
+            default -> {
+                // Reject unknown destinations
+                log.warn("SUBSCRIBE to unknown destination: {} by user {}", destination, auth.getUsername());
+                throw new IllegalArgumentException("Invalid subscription destination");
+            }
         }
-
-        // Reject unknown destinations
-        log.warn("SUBSCRIBE to unknown destination: {} by user {}", destination, auth.getUsername());
-        throw new IllegalArgumentException("Invalid subscription destination");
     }
 
     private Message<?> handleSend(Message<?> message, StompHeaderAccessor accessor) {
@@ -164,11 +170,9 @@ public class WebSocketSecurityConfig implements WebSocketMessageBrokerConfigurer
             throw new IllegalArgumentException("Invalid send request");
         }
 
-        log.debug("SEND request from {} to {}", auth.getUsername(), destination);
-
-        Matcher matcher = CONVERSATION_APP_PATTERN.matcher(destination);
-        if (matcher.matches()) {
-            Long conversationId = Long.parseLong(matcher.group(1));
+        Route route = destinationRouter.resolve(destination);
+        if (route.kind() == DestinationRouter.Kind.CONVERSATION_SEND) {
+            long conversationId = route.conversationId();
 
             if (!authorizationService.isUserInConversation(auth.getUserId(), conversationId)) {
                 log.warn("User {} attempted to send to conversation {} without membership",
@@ -182,7 +186,6 @@ public class WebSocketSecurityConfig implements WebSocketMessageBrokerConfigurer
                 throw new IllegalArgumentException("Rate limit exceeded. Please slow down.");
             }
 
-            log.debug("User {} authorized to send to conversation {}", auth.getUsername(), conversationId);
             return message;
         }
 
@@ -191,6 +194,15 @@ public class WebSocketSecurityConfig implements WebSocketMessageBrokerConfigurer
         throw new IllegalArgumentException("Invalid send destination");
     }
 
+    private List<SimpleGrantedAuthority> authoritiesFor(List<String> roles) {
+        if (roles == null) {
+            return DEFAULT_AUTHORITIES;
+        }
+        return authorityCache.computeIfAbsent(List.copyOf(roles), key -> key.stream()
+                .map(SimpleGrantedAuthority::new)
+                .toList());
+    }
+
     private JwtAuthenticationToken getAuthentication(StompHeaderAccessor accessor) {
         if (accessor.getUser() instanceof JwtAuthenticationToken jwtAuth) {
             return jwtAuth;
@@ -4,6 +4,7 @@ import com.socialchat.dto.chat.*;
 import com.socialchat.dto.common.ApiResponse;
 import com.socialchat.dto.common.PageResponse;
 import com.socialchat.service.ChatService;
+import com.socialchat.service.ReactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -15,6 +16,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/chat")
 @RequiredArgsConstructor
@@ -23,6 +26,7 @@ import org.springframework.web.bind.annotation.*;
 public class ChatController {
 
     private final ChatService chatService;
+    private final ReactionService reactionService;
 
     @PostMapping("/conversations")
     @Operation(summary = "Create or get conversation")
@@ -65,6 +69,67 @@ public class ChatController {
                 ));
     }
 
+    @GetMapping("/conversations/{id}/messages/changes")
+    @Operation(summary = "Get messages changed after a version (delta sync)")
+    public ResponseEntity<ApiResponse<MessageChangesResponse>> getMessageChanges(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "0") Long sinceVersion,
+            @RequestParam(required = false) Long untilVersion,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(ApiResponse.success(
+                chatService.getMessageChanges(id, sinceVersion, untilVersion, limit)));
+    }
+
+    @GetMapping("/conversations/{id}/messages/after")
+    @Operation(summary = "Get messages newer than a message id (reconnect catch-up)")
+    public ResponseEntity<ApiResponse<List<MessageResponse>>> getMessagesAfter(
+            @PathVariable Long id,
+            @RequestParam Long afterId,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(ApiResponse.success(chatService.getMessagesAfter(id, afterId, limit)));
+    }
+
+    @PutMapping("/conversations/{id}/messages/{messageId}")
+    @Operation(summary = "Edit message")
+    public ResponseEntity<ApiResponse<MessageResponse>> editMessage(
+            @PathVariable Long id,
+            @PathVariable Long messageId,
+            @Valid @RequestBody MessageRequest request) {
+        return ResponseEntity.ok(ApiResponse.success(
+                chatService.editMessage(id, messageId, request),
+                "Message updated"
+        ));
+    }
+
+    @DeleteMapping("/conversations/{id}/messages/{messageId}")
+    @Operation(summary = "Delete message")
+    public ResponseEntity<ApiResponse<Void>> deleteMessage(
+            @PathVariable Long id,
+            @PathVariable Long messageId) {
+        chatService.deleteMessage(id, messageId);
+        return ResponseEntity.ok(ApiResponse.success(null, "Message deleted"));
+    }
+
+    @PostMapping("/conversations/{id}/messages/{messageId}/reactions")
+    @Operation(summary = "Add reaction to message")
+    public ResponseEntity<ApiResponse<Void>> addReaction(
+            @PathVariable Long id,
+            @PathVariable Long messageId,
+            @Valid @RequestBody ReactionRequest request) {
+        reactionService.addReaction(id, messageId, request.getEmoji());
+        return ResponseEntity.ok(ApiResponse.success(null, "Reaction added"));
+    }
+
+    @DeleteMapping("/conversations/{id}/messages/{messageId}/reactions")
+    @Operation(summary = "Remove reaction from message")
+    public ResponseEntity<ApiResponse<Void>> removeReaction(
+            @PathVariable Long id,
+            @PathVariable Long messageId,
+            @RequestParam String emoji) {
+        reactionService.removeReaction(id, messageId, emoji);
+        return ResponseEntity.ok(ApiResponse.success(null, "Reaction removed"));
+    }
+
     @PostMapping("/conversations/{id}/read")
     @Operation(summary = "Mark conversation as read")
     public ResponseEntity<ApiResponse<Void>> markAsRead(@PathVariable Long id) {
@@ -72,6 +137,41 @@ public class ChatController {
         return ResponseEntity.ok(ApiResponse.success(null, "Marked as read"));
     }
 
+    @GetMapping("/conversations/{id}/participants")
+    @Operation(summary = "Get conversation participants (keyset paginated)")
+    public ResponseEntity<ApiResponse<RosterPageResponse>> getParticipants(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(ApiResponse.success(chatService.getParticipants(id, after, limit)));
+    }
+
+    @PostMapping("/conversations/{id}/participants")
+    @Operation(summary = "Add participants to group conversation (owner only)")
+    public ResponseEntity<ApiResponse<Void>> addParticipants(
+            @PathVariable Long id,
+            @Valid @RequestBody AddParticipantsRequest request) {
+        chatService.addParticipants(id, request);
+        return ResponseEntity.ok(ApiResponse.success(null, "Participants added"));
+    }
+
+    @DeleteMapping("/conversations/{id}/participants/{userId}")
+    @Operation(summary = "Remove participant from conversation")
+    public ResponseEntity<ApiResponse<Void>> removeParticipant(
+            @PathVariable Long id,
+            @PathVariable Long userId) {
+        chatService.removeParticipant(id, userId);
+        return ResponseEntity.ok(ApiResponse.success(null, "Participant removed"));
+    }
+
+    @PatchMapping("/conversations/{id}/settings")
+    @Operation(summary = "Mute/unmute or pin/unpin conversation")
+    public ResponseEntity<ApiResponse<ConversationResponse>> updateSettings(
+            @PathVariable Long id,
+            @RequestBody ConversationSettingsRequest request) {
+        return ResponseEntity.ok(ApiResponse.success(chatService.updateSettings(id, request)));
+    }
+
     @DeleteMapping("/conversations/{id}")
     @Operation(summary = "Leave conversation")
     public ResponseEntity<ApiResponse<Void>> leaveConversation(@PathVariable Long id) {
@@ -0,0 +1,60 @@
+package com.socialchat.controller;
+
+import com.socialchat.cluster.ClusterClient;
+import com.socialchat.dto.chat.MessageResponse;
+import com.socialchat.dto.cluster.ForwardedCommandRequest;
+import com.socialchat.dto.common.ApiResponse;
+import com.socialchat.exception.UnauthorizedException;
+import com.socialchat.service.ChatService;
+import io.swagger.v3.oas.annotations.Hidden;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Node-to-node endpoints for cluster mode. Only callers presenting the cluster secret
+ * are served; these paths are not behind JWT authentication.
+ */
+@Hidden
+@RestController
+@RequestMapping(ClusterClient.INTERNAL_PREFIX)
+@ConditionalOnProperty(name = "app.cluster.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ClusterController {
+
+    private final ClusterClient clusterClient;
+    private final ChatService chatService;
+
+    @GetMapping("/ping")
+    public ResponseEntity<ApiResponse<Void>> ping(@RequestHeader(value = ClusterClient.TOKEN_HEADER, required = false) String token) {
+        requirePeer(token);
+        return ResponseEntity.ok(ApiResponse.success(null));
+    }
+
+    @PostMapping("/conversations/{id}/messages")
+    public ResponseEntity<ApiResponse<MessageResponse>> sendMessage(
+            @RequestHeader(value = ClusterClient.TOKEN_HEADER, required = false) String token,
+            @PathVariable Long id,
+            @RequestBody ForwardedCommandRequest request) {
+        requirePeer(token);
+        return ResponseEntity.ok(ApiResponse.success(
+                chatService.sendMessageFromWebSocket(id, request.getUserId(), request.getMessage())));
+    }
+
+    @PostMapping("/conversations/{id}/read")
+    public ResponseEntity<ApiResponse<Void>> markAsRead(
+            @RequestHeader(value = ClusterClient.TOKEN_HEADER, required = false) String token,
+            @PathVariable Long id,
+            @RequestBody ForwardedCommandRequest request) {
+        requirePeer(token);
+        chatService.markConversationAsReadFromWebSocket(id, request.getUserId());
+        return ResponseEntity.ok(ApiResponse.success(null));
+    }
+
+    private void requirePeer(String token) {
+        if (!clusterClient.isTrusted(token)) {
+            throw new UnauthorizedException("Cluster token required");
+        }
+    }
+}
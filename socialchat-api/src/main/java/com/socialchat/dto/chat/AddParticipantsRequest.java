@@ -0,0 +1,21 @@
+package com.socialchat.dto.chat;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AddParticipantsRequest {
+
+    @NotEmpty(message = "User IDs are required")
+    @Size(max = 100, message = "Cannot add more than 100 participants at once")
+    private List<Long> userIds;
+}
@@ -17,9 +17,13 @@ public class ConversationResponse {
     private Long id;
     private String name;
     private Boolean isGroup;
-    private List<UserResponse> participants;
+    private int participantCount;
+    private List<UserResponse> participants; // Capped preview; use the roster endpoint for the full list
     private MessageResponse lastMessage;
     private Long unreadCount;
+    private Integer unreadMentionCount;
+    private Boolean muted;
+    private Boolean pinned;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
@@ -0,0 +1,15 @@
+package com.socialchat.dto.chat;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversationSettingsRequest {
+    private Boolean muted;  // Optional, unchanged when null
+    private Boolean pinned; // Optional, unchanged when null
+}
@@ -0,0 +1,26 @@
+package com.socialchat.dto.chat;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Delta sync page: every message created, edited or deleted in (sinceVersion, toVersion].
+ * Deleted messages are returned as tombstones. Clients resume with sinceVersion = toVersion
+ * while hasMore is true.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageChangesResponse {
+    private Long conversationId;
+    private Long sinceVersion;
+    private Long toVersion;
+    private Long currentVersion;
+    private boolean hasMore;
+    private List<MessageResponse> messages;
+}
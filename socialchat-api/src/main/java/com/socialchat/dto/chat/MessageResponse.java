@@ -7,9 +7,10 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class MessageResponse {
@@ -19,4 +20,8 @@ public class MessageResponse {
     private String content;
     private String imageUrl;
     private LocalDateTime createdAt;
+    private Long version;
+    private LocalDateTime editedAt;
+    private boolean deleted;
+    private Map<String, Long> reactions;
 }
@@ -0,0 +1,17 @@
+package com.socialchat.dto.chat;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Opens an RSocket message stream after the newest message id the client already has.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageStreamRequest {
+    private Long afterId;
+}
@@ -0,0 +1,19 @@
+package com.socialchat.dto.chat;
+
+import com.socialchat.dto.user.UserResponse;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParticipantResponse {
+    private Long participantId;
+    private UserResponse user;
+    private LocalDateTime joinedAt;
+}
@@ -0,0 +1,19 @@
+package com.socialchat.dto.chat;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReactionRequest {
+
+    @NotBlank(message = "Emoji is required")
+    @Size(max = 32, message = "Emoji must not exceed 32 characters")
+    private String emoji;
+}
@@ -0,0 +1,22 @@
+package com.socialchat.dto.chat;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Keyset page of a conversation roster. Pass nextCursor as "after" to fetch the next page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RosterPageResponse {
+    private List<ParticipantResponse> content;
+    private Long nextCursor;
+    private boolean hasMore;
+    private int participantCount;
+}
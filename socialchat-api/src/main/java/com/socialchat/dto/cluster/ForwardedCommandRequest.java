@@ -0,0 +1,20 @@
+package com.socialchat.dto.cluster;
+
+import com.socialchat.dto.chat.MessageRequest;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A STOMP command forwarded to the conversation's owner node, on behalf of the user
+ * authenticated on the originating session.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ForwardedCommandRequest {
+    private Long userId;
+    private MessageRequest message;
+}
@@ -0,0 +1,24 @@
+package com.socialchat.dto.websocket;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight inbox push for a new message, sent to unmuted members on /user/queue/inbox.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversationActivityEvent {
+    private Long conversationId;
+    private Long messageId;
+    private Long senderId;
+    private String senderUsername;
+    private String preview;
+    private LocalDateTime createdAt;
+}
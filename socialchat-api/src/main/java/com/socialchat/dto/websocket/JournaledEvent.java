@@ -0,0 +1,17 @@
+package com.socialchat.dto.websocket;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JournaledEvent {
+    private Long offset;
+    private String type;
+    private String destination;
+    private Object payload;
+}
@@ -0,0 +1,25 @@
+package com.socialchat.dto.websocket;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessagePatchEvent {
+    private Long conversationId;
+    private Long messageId;
+    private Long version;
+    private PatchType type;
+    private String content; // Only set for EDITED
+    private LocalDateTime changedAt;
+
+    public enum PatchType {
+        EDITED, DELETED
+    }
+}
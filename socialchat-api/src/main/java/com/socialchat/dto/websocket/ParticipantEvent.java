@@ -0,0 +1,26 @@
+package com.socialchat.dto.websocket;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Incremental roster change so clients can patch their member list without reloading it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParticipantEvent {
+    private Long conversationId;
+    private ChangeType type;
+    private List<Long> userIds;
+    private int participantCount;
+
+    public enum ChangeType {
+        ADDED, REMOVED
+    }
+}
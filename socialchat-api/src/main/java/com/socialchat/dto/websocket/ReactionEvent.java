@@ -0,0 +1,21 @@
+package com.socialchat.dto.websocket;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Coalesced reaction update for one conversation.
+ * Carries absolute counts (messageId -> emoji -> count) for every message touched in the window.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReactionEvent {
+    private Long conversationId;
+    private Map<Long, Map<String, Long>> reactions;
+}
@@ -0,0 +1,23 @@
+package com.socialchat.dto.websocket;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Answer to a resume request. When {@code complete} is false some missed events are no
+ * longer journaled and the client should reload over REST. Either way {@code lastOffset}
+ * is the client's new resume offset.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplayEvent {
+    private boolean complete;
+    private Long lastOffset;
+    private List<JournaledEvent> events;
+}
@@ -29,6 +29,9 @@ public class Conversation {
     @Builder.Default
     private Boolean isGroup = false;
 
+    @Column(name = "created_by")
+    private Long createdBy;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -37,6 +40,10 @@ public class Conversation {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Only ever advanced through ConversationRepository.incrementMessageVersion
+    @Column(name = "message_version", insertable = false, updatable = false)
+    private Long messageVersion;
+
     @OneToMany(mappedBy = "conversation", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private Set<ConversationParticipant> participants = new HashSet<>();
@@ -31,4 +31,17 @@ public class ConversationParticipant {
 
     @Column(name = "joined_at")
     private LocalDateTime joinedAt;
+
+    // Reset together with lastReadAt when the conversation is marked as read
+    @Column(name = "unread_mention_count", nullable = false)
+    @Builder.Default
+    private Integer unreadMentionCount = 0;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean muted = false;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean pinned = false;
 }
@@ -36,4 +36,20 @@ public class Message {
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
+
+    // Conversation-scoped change version; bumped on create, edit and delete
+    @Column(nullable = false)
+    @Builder.Default
+    private Long version = 0L;
+
+    @Column(name = "edited_at")
+    private LocalDateTime editedAt;
+
+    // Tombstone marker - content is cleared but the row is kept for delta sync
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
+    public boolean isDeleted() {
+        return deletedAt != null;
+    }
 }
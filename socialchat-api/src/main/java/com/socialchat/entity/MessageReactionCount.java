@@ -0,0 +1,32 @@
+package com.socialchat.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Aggregated reaction counter for a (message, emoji) pair.
+ * Maintained incrementally so reads never have to count message_reactions rows.
+ */
+@Entity
+@Table(name = "message_reaction_counts")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MessageReactionCount {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "message_id", nullable = false)
+    private Long messageId;
+
+    @Column(nullable = false, length = 32)
+    private String emoji;
+
+    @Column(name = "reaction_count", nullable = false)
+    @Builder.Default
+    private Long count = 0L;
+}
@@ -0,0 +1,7 @@
+package com.socialchat.event;
+
+import com.socialchat.gateway.GatewayEvent;
+
+import java.time.LocalDateTime;
+
+public record ConversationReadEvent(Long conversationId, Long userId, LocalDateTime readAt) implements GatewayEvent {}
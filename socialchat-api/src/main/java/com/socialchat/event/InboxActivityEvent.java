@@ -0,0 +1,8 @@
+package com.socialchat.event;
+
+import com.socialchat.dto.websocket.ConversationActivityEvent;
+import com.socialchat.gateway.GatewayEvent;
+
+import java.util.List;
+
+public record InboxActivityEvent(List<String> usernames, ConversationActivityEvent activity) implements GatewayEvent {}
@@ -0,0 +1,6 @@
+package com.socialchat.event;
+
+import com.socialchat.dto.websocket.MessagePatchEvent;
+import com.socialchat.gateway.GatewayEvent;
+
+public record MessagePatchedEvent(Long conversationId, MessagePatchEvent patch) implements GatewayEvent {}
@@ -0,0 +1,6 @@
+package com.socialchat.event;
+
+import com.socialchat.dto.chat.MessageResponse;
+import com.socialchat.gateway.GatewayEvent;
+
+public record MessageSentEvent(Long conversationId, MessageResponse message) implements GatewayEvent {}
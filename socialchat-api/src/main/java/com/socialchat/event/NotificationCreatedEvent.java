@@ -0,0 +1,8 @@
+package com.socialchat.event;
+
+import com.socialchat.dto.websocket.NotificationEvent;
+import com.socialchat.gateway.GatewayEvent;
+
+import java.util.List;
+
+public record NotificationCreatedEvent(List<String> usernames, NotificationEvent notification) implements GatewayEvent {}
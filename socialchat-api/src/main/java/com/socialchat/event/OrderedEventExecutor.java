@@ -0,0 +1,77 @@
+package com.socialchat.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Dedicated executor for pushing domain events to WebSocket clients.
+ *
+ * Work is spread over single-threaded lanes chosen by key (normally the conversation id),
+ * so events for one conversation are delivered in the order they were committed while
+ * different conversations proceed in parallel. Submissions come from after-commit
+ * callbacks, which run while the committing thread still holds its JDBC connection, so
+ * they never wait: lane queues are unbounded. A lane that falls {@code queue-alert-depth}
+ * events behind is counted and logged instead.
+ */
+@Slf4j
+@Component
+public class OrderedEventExecutor implements DisposableBean {
+
+    private final ThreadPoolTaskExecutor[] lanes;
+    private final int alertDepth;
+    private final Counter overDepth;
+
+    public OrderedEventExecutor(@Value("${app.events.lanes:4}") int laneCount,
+                                @Value("${app.events.queue-alert-depth:10000}") int alertDepth,
+                                MeterRegistry meterRegistry) {
+        this.alertDepth = alertDepth;
+        this.overDepth = Counter.builder("domain.events.over-depth")
+                .description("Submissions to a lane already queue-alert-depth events behind")
+                .register(meterRegistry);
+        this.lanes = new ThreadPoolTaskExecutor[Math.max(1, laneCount)];
+        for (int i = 0; i < lanes.length; i++) {
+            ThreadPoolTaskExecutor lane = new ThreadPoolTaskExecutor();
+            lane.setThreadNamePrefix("domain-events-" + i + "-");
+            lane.setCorePoolSize(1);
+            lane.setMaxPoolSize(1);
+            lane.initialize();
+            lanes[i] = lane;
+
+            Gauge.builder("domain.events.queue.depth", lane, ThreadPoolTaskExecutor::getQueueSize)
+                    .tag("lane", String.valueOf(i))
+                    .description("Domain events waiting to be pushed")
+                    .register(meterRegistry);
+        }
+    }
+
+    public void execute(Object key, Runnable task) {
+        int lane = key != null ? Math.floorMod(key.hashCode(), lanes.length) : 0;
+        int depth = lanes[lane].getQueueSize();
+        if (depth >= alertDepth) {
+            overDepth.increment();
+            if (depth == alertDepth) {
+                log.warn("Domain event lane {} is {} events behind", lane, depth);
+            }
+        }
+        lanes[lane].execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.warn("Domain event delivery failed", e);
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        for (ThreadPoolTaskExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+}
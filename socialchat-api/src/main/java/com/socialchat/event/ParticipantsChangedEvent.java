@@ -0,0 +1,6 @@
+package com.socialchat.event;
+
+import com.socialchat.dto.websocket.ParticipantEvent;
+import com.socialchat.gateway.GatewayEvent;
+
+public record ParticipantsChangedEvent(Long conversationId, ParticipantEvent change) implements GatewayEvent {}
@@ -0,0 +1,8 @@
+package com.socialchat.event;
+
+import com.socialchat.dto.websocket.PresenceEvent;
+import com.socialchat.gateway.GatewayEvent;
+
+import java.util.List;
+
+public record PresenceChangedEvent(List<String> usernames, PresenceEvent presence) implements GatewayEvent {}
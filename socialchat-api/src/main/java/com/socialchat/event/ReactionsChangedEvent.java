@@ -0,0 +1,6 @@
+package com.socialchat.event;
+
+import com.socialchat.dto.websocket.ReactionEvent;
+import com.socialchat.gateway.GatewayEvent;
+
+public record ReactionsChangedEvent(Long conversationId, ReactionEvent reactions) implements GatewayEvent {}
@@ -0,0 +1,133 @@
+package com.socialchat.event;
+
+import com.socialchat.dto.websocket.ReadReceiptEvent;
+import com.socialchat.gateway.InProcessGatewayEventPublisher;
+import com.socialchat.service.ConversationRosterService;
+import com.socialchat.service.EventStreamService;
+import com.socialchat.service.UserEventJournal;
+import com.socialchat.service.WebSocketService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * Pushes domain events to WebSocket and SSE clients once the publishing transaction has
+ * committed. This is the gateway end of {@link InProcessGatewayEventPublisher}. Nothing
+ * is sent for a rollback. The listeners run in after-commit callbacks, where row locks
+ * are released but the committing thread still holds its JDBC connection, so they only
+ * hand the broker work to {@link OrderedEventExecutor}, which never makes them wait.
+ * Events published outside a transaction are pushed immediately (fallbackExecution).
+ *
+ * Each event is first appended to {@link UserEventJournal} for all of its recipients
+ * (conversation members for conversation events), and the journal offset travels with
+ * the push so clients can resume from it. The journal is told once the pushes are out,
+ * including when one fails, so it knows which offsets clients may still be waiting for.
+ */
+@Component
+@RequiredArgsConstructor
+public class WebSocketEventRelay {
+
+    private final WebSocketService webSocketService;
+    private final EventStreamService eventStreamService;
+    private final UserEventJournal journal;
+    private final ConversationRosterService rosterService;
+    private final OrderedEventExecutor executor;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageSent(MessageSentEvent event) {
+        executor.execute(event.conversationId(), () -> {
+            UserEventJournal.Entry entry = journalForMembers(event.conversationId(), UserEventJournal.MESSAGE, "messages", event.message());
+            push(entry, () -> webSocketService.sendChatMessage(event.conversationId(), event.message(), entry.offset()));
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessagePatched(MessagePatchedEvent event) {
+        executor.execute(event.conversationId(), () -> {
+            UserEventJournal.Entry entry = journalForMembers(event.conversationId(), UserEventJournal.MESSAGE_PATCH, "message-updates", event.patch());
+            push(entry, () -> webSocketService.sendMessagePatch(event.conversationId(), event.patch(), entry.offset()));
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onConversationRead(ConversationReadEvent event) {
+        executor.execute(event.conversationId(), () -> {
+            ReadReceiptEvent receipt = ReadReceiptEvent.builder()
+                    .conversationId(event.conversationId())
+                    .userId(event.userId())
+                    .readAt(event.readAt())
+                    .build();
+            UserEventJournal.Entry entry = journalForMembers(event.conversationId(), UserEventJournal.READ_RECEIPT, "read-receipts", receipt);
+            push(entry, () -> webSocketService.sendReadReceipt(receipt, entry.offset()));
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onParticipantsChanged(ParticipantsChangedEvent event) {
+        executor.execute(event.conversationId(), () -> {
+            UserEventJournal.Entry entry = journalForMembers(event.conversationId(), UserEventJournal.PARTICIPANTS, "members", event.change());
+            push(entry, () -> webSocketService.sendParticipantChange(event.conversationId(), event.change(), entry.offset()));
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReactionsChanged(ReactionsChangedEvent event) {
+        // Not journaled: counters are absolute, so the next update or a reload corrects them
+        executor.execute(event.conversationId(),
+                () -> webSocketService.sendReactionUpdate(event.conversationId(), event.reactions()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onInboxActivity(InboxActivityEvent event) {
+        // Not journaled: replayed message events carry the same information
+        executor.execute(event.activity().getConversationId(),
+                () -> webSocketService.sendInboxActivity(event.usernames(), event.activity()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPresenceChanged(PresenceChangedEvent event) {
+        // Keyed by the user whose presence changed, so online/offline arrive in order
+        executor.execute(event.presence().getUsername(), () -> {
+            UserEventJournal.Entry entry = journal.append(event.usernames(), UserEventJournal.PRESENCE,
+                    "/user" + WebSocketService.PRESENCE_QUEUE, event.presence());
+            push(entry, () -> {
+                webSocketService.sendPresenceUpdateToUsers(event.usernames(), event.presence(), entry.offset());
+                eventStreamService.publish(event.usernames(), entry);
+            });
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationCreated(NotificationCreatedEvent event) {
+        Object key = event.usernames().size() == 1 ? event.usernames().get(0) : event.notification().getType();
+        executor.execute(key, () -> {
+            UserEventJournal.Entry entry = journal.append(event.usernames(), UserEventJournal.NOTIFICATION,
+                    "/user" + WebSocketService.NOTIFICATIONS_QUEUE, event.notification());
+            push(entry, () -> {
+                if (event.usernames().size() == 1) {
+                    webSocketService.sendNotificationToUser(event.usernames().get(0), event.notification(), entry.offset());
+                } else {
+                    webSocketService.sendNotificationToUsers(event.usernames(), event.notification(), entry.offset());
+                }
+                eventStreamService.publish(event.usernames(), entry);
+            });
+        });
+    }
+
+    private UserEventJournal.Entry journalForMembers(Long conversationId, String type, String channel, Object payload) {
+        List<String> members = rosterService.getRoster(conversationId).members().stream()
+                .map(ConversationRosterService.Member::username)
+                .toList();
+        return journal.append(members, type, WebSocketService.conversationDestination(conversationId, channel), payload);
+    }
+
+    private void push(UserEventJournal.Entry entry, Runnable send) {
+        try {
+            send.run();
+        } finally {
+            journal.published(entry);
+        }
+    }
+}
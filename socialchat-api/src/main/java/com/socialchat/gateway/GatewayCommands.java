@@ -0,0 +1,22 @@
+package com.socialchat.gateway;
+
+import com.socialchat.dto.chat.MessageRequest;
+import com.socialchat.dto.chat.MessageResponse;
+
+import java.util.List;
+
+/**
+ * Domain operations the gateway invokes on behalf of a connected client. The user is
+ * the one authenticated on the session, so no security context is needed.
+ */
+public interface GatewayCommands {
+
+    MessageResponse sendMessageFromWebSocket(Long conversationId, Long userId, MessageRequest request);
+
+    void markConversationAsReadFromWebSocket(Long conversationId, Long userId);
+
+    /**
+     * Messages newer than {@code afterId}, oldest first, at most {@code limit}.
+     */
+    List<MessageResponse> getMessagesAfterForUser(Long conversationId, Long userId, Long afterId, int limit);
+}
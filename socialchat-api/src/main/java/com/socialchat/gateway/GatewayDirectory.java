@@ -0,0 +1,14 @@
+package com.socialchat.gateway;
+
+/**
+ * What the domain side may ask the gateway about connected users.
+ */
+public interface GatewayDirectory {
+
+    /**
+     * Whether the user has at least one STOMP session. Local sessions are answered by
+     * the session registry; in broker relay mode the SimpUserRegistry also knows about
+     * sessions on other nodes.
+     */
+    boolean isUserConnected(String username);
+}
@@ -0,0 +1,8 @@
+package com.socialchat.gateway;
+
+/**
+ * An event the domain side hands to the gateway for delivery to connected clients.
+ * Implementations are immutable records in {@code com.socialchat.event}.
+ */
+public interface GatewayEvent {
+}
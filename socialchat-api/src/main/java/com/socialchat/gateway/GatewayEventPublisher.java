@@ -0,0 +1,17 @@
+package com.socialchat.gateway;
+
+/**
+ * The only way the REST/domain side pushes anything to clients.
+ *
+ * The gateway is everything that holds client connections: STOMP and SSE endpoints,
+ * sessions, presence and the event journal. Domain services publish {@link GatewayEvent}s
+ * here and ask {@link GatewayDirectory} who is connected; the gateway calls back into the
+ * domain only through {@link GatewayCommands}. Events published inside a transaction
+ * are delivered after it commits and dropped if it rolls back.
+ *
+ * {@link InProcessGatewayEventPublisher} is the default, for nodes that run both sides.
+ */
+public interface GatewayEventPublisher {
+
+    void publish(GatewayEvent event);
+}
@@ -0,0 +1,20 @@
+package com.socialchat.gateway;
+
+import com.socialchat.websocket.UserSessionRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class InProcessGatewayDirectory implements GatewayDirectory {
+
+    private final UserSessionRegistry sessionRegistry;
+    private final SimpUserRegistry userRegistry;
+
+    @Override
+    public boolean isUserConnected(String username) {
+        return sessionRegistry.isOnline(username)
+                || (username != null && userRegistry.getUser(username) != null);
+    }
+}
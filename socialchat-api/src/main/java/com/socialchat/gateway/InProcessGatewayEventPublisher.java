@@ -0,0 +1,22 @@
+package com.socialchat.gateway;
+
+import com.socialchat.event.WebSocketEventRelay;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands events to the gateway in the same JVM as Spring application events, which
+ * {@link WebSocketEventRelay} picks up after the transaction commits.
+ */
+@Component
+@RequiredArgsConstructor
+public class InProcessGatewayEventPublisher implements GatewayEventPublisher {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void publish(GatewayEvent event) {
+        eventPublisher.publishEvent(event);
+    }
+}
@@ -15,6 +15,8 @@ import java.util.List;
 public interface ChatMapper {
 
     @Mapping(target = "conversationId", source = "conversation.id")
+    @Mapping(target = "deleted", expression = "java(message.isDeleted())")
+    @Mapping(target = "reactions", ignore = true)
     MessageResponse toMessageResponse(Message message);
 
     @Mapping(target = "id", source = "conversation.id")
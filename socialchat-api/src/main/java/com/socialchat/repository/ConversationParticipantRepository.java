@@ -3,6 +3,7 @@ package com.socialchat.repository;
 import com.socialchat.entity.Conversation;
 import com.socialchat.entity.ConversationParticipant;
 import com.socialchat.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -10,6 +11,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,7 +31,41 @@ public interface ConversationParticipantRepository extends JpaRepository<Convers
     @Query("SELECT cp.user.id FROM ConversationParticipant cp WHERE cp.conversation.id = :conversationId")
     List<Long> findUserIdsByConversationId(@Param("conversationId") Long conversationId);
 
+    @Query("SELECT COUNT(cp) FROM ConversationParticipant cp WHERE cp.conversation.id = :conversationId")
+    long countByConversationId(@Param("conversationId") Long conversationId);
+
+    // Earliest-joined members first; the first one takes over a group whose owner is gone
+    @Query("SELECT cp.user.id FROM ConversationParticipant cp " +
+            "WHERE cp.conversation.id = :conversationId AND cp.user.id <> :excludedUserId ORDER BY cp.id ASC")
+    List<Long> findEarliestUserIds(@Param("conversationId") Long conversationId,
+                                   @Param("excludedUserId") Long excludedUserId,
+                                   Pageable pageable);
+
+    @Query("SELECT cp.user.id, cp.user.username, cp.muted, cp.pinned FROM ConversationParticipant cp " +
+            "WHERE cp.conversation.id = :conversationId")
+    List<Object[]> findRosterRows(@Param("conversationId") Long conversationId);
+
+    @Query("SELECT cp.user FROM ConversationParticipant cp WHERE cp.conversation.id = :conversationId ORDER BY cp.id ASC")
+    List<User> findPreviewUsers(@Param("conversationId") Long conversationId, Pageable pageable);
+
+    @Query("SELECT cp FROM ConversationParticipant cp JOIN FETCH cp.user " +
+            "WHERE cp.conversation.id = :conversationId AND cp.id > :afterId ORDER BY cp.id ASC")
+    List<ConversationParticipant> findRosterPage(@Param("conversationId") Long conversationId,
+                                                 @Param("afterId") Long afterId,
+                                                 Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM ConversationParticipant cp WHERE cp.conversation.id = :conversationId AND cp.user.id = :userId")
+    int deleteByConversationIdAndUserId(@Param("conversationId") Long conversationId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query("UPDATE ConversationParticipant cp SET cp.unreadMentionCount = cp.unreadMentionCount + 1 " +
+            "WHERE cp.conversation.id = :conversationId AND cp.user.id IN :userIds")
+    int incrementUnreadMentions(@Param("conversationId") Long conversationId,
+                                @Param("userIds") Collection<Long> userIds);
+
     @Modifying
-    @Query("UPDATE ConversationParticipant cp SET cp.lastReadAt = :readAt WHERE cp.conversation = :conversation AND cp.user = :user")
+    @Query("UPDATE ConversationParticipant cp SET cp.lastReadAt = :readAt, cp.unreadMentionCount = 0 " +
+            "WHERE cp.conversation = :conversation AND cp.user = :user")
     void updateLastReadAt(@Param("conversation") Conversation conversation, @Param("user") User user, @Param("readAt") LocalDateTime readAt);
 }
@@ -4,6 +4,7 @@ import com.socialchat.entity.Conversation;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -17,7 +18,10 @@ public interface ConversationRepository extends JpaRepository<Conversation, Long
     @Query("SELECT DISTINCT c FROM Conversation c JOIN c.participants p WHERE p.user.id = :userId ORDER BY c.updatedAt DESC")
     List<Conversation> findByUserId(@Param("userId") Long userId);
 
-    @Query("SELECT DISTINCT c FROM Conversation c JOIN c.participants p WHERE p.user.id = :userId ORDER BY c.updatedAt DESC")
+    // Pinned conversations first; one participant row per (conversation, user) so no DISTINCT needed
+    @Query(value = "SELECT c FROM Conversation c JOIN c.participants p WHERE p.user.id = :userId " +
+            "ORDER BY p.pinned DESC, c.updatedAt DESC",
+            countQuery = "SELECT COUNT(p) FROM ConversationParticipant p WHERE p.user.id = :userId")
     Page<Conversation> findByUserIdPaged(@Param("userId") Long userId, Pageable pageable);
 
     @Query("SELECT c FROM Conversation c " +
@@ -25,4 +29,16 @@ public interface ConversationRepository extends JpaRepository<Conversation, Long
            "JOIN c.participants p2 " +
            "WHERE p1.user.id = :user1Id AND p2.user.id = :user2Id AND c.isGroup = false")
     Optional<Conversation> findDirectConversation(@Param("user1Id") Long user1Id, @Param("user2Id") Long user2Id);
+
+    @Modifying
+    @Query("UPDATE Conversation c SET c.messageVersion = c.messageVersion + 1 WHERE c.id = :conversationId")
+    int incrementMessageVersion(@Param("conversationId") Long conversationId);
+
+    // Keeps updatedAt, so an ownership change does not move the conversation in anyone's inbox
+    @Modifying
+    @Query("UPDATE Conversation c SET c.createdBy = :ownerId, c.updatedAt = c.updatedAt WHERE c.id = :conversationId")
+    int updateOwner(@Param("conversationId") Long conversationId, @Param("ownerId") Long ownerId);
+
+    @Query("SELECT c.messageVersion FROM Conversation c WHERE c.id = :conversationId")
+    Optional<Long> findMessageVersion(@Param("conversationId") Long conversationId);
 }
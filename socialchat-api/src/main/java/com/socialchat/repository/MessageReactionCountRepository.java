@@ -0,0 +1,59 @@
+package com.socialchat.repository;
+
+import com.socialchat.entity.MessageReactionCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MessageReactionCountRepository extends JpaRepository<MessageReactionCount, Long> {
+
+    @Query("SELECT c FROM MessageReactionCount c WHERE c.messageId IN :messageIds AND c.count > 0")
+    List<MessageReactionCount> findPositiveByMessageIdIn(@Param("messageIds") Collection<Long> messageIds);
+
+    /**
+     * Add a coalesced positive delta to a single counter row in one statement,
+     * creating the row on first use.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO message_reaction_counts (message_id, emoji, reaction_count) " +
+            "VALUES (:messageId, :emoji, :delta) " +
+            "ON DUPLICATE KEY UPDATE reaction_count = reaction_count + :delta",
+            nativeQuery = true)
+    void increment(@Param("messageId") Long messageId, @Param("emoji") String emoji, @Param("delta") long delta);
+
+    /**
+     * Subtract a coalesced delta from a single counter row. Returns 0 without touching the
+     * row when it is missing or would drop below zero, i.e. when the counter has drifted.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE message_reaction_counts SET reaction_count = reaction_count - :delta " +
+            "WHERE message_id = :messageId AND emoji = :emoji AND reaction_count >= :delta",
+            nativeQuery = true)
+    int decrement(@Param("messageId") Long messageId, @Param("emoji") String emoji, @Param("delta") long delta);
+
+    /**
+     * Reset a single counter to the number of message_reactions rows it aggregates.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO message_reaction_counts (message_id, emoji, reaction_count) " +
+            "SELECT :messageId, :emoji, COUNT(*) FROM message_reactions " +
+            "WHERE message_id = :messageId AND emoji = :emoji " +
+            "ON DUPLICATE KEY UPDATE reaction_count = VALUES(reaction_count)",
+            nativeQuery = true)
+    void recount(@Param("messageId") Long messageId, @Param("emoji") String emoji);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM MessageReactionCount c WHERE c.count <= 0")
+    int deleteEmptyCounters();
+}
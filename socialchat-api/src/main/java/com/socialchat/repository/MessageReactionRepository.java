@@ -0,0 +1,20 @@
+package com.socialchat.repository;
+
+import com.socialchat.entity.MessageReaction;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MessageReactionRepository extends JpaRepository<MessageReaction, Long> {
+
+    boolean existsByMessageIdAndUserIdAndEmoji(Long messageId, Long userId, String emoji);
+
+    @Modifying
+    @Query("DELETE FROM MessageReaction r WHERE r.message.id = :messageId AND r.user.id = :userId AND r.emoji = :emoji")
+    int deleteByMessageIdAndUserIdAndEmoji(@Param("messageId") Long messageId,
+                                           @Param("userId") Long userId,
+                                           @Param("emoji") String emoji);
+}
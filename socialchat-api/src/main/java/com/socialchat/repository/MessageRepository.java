@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -23,4 +24,16 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     int countUnreadMessages(@Param("conversation") Conversation conversation, @Param("since") LocalDateTime since, @Param("userId") Long userId);
 
     long countByConversationAndCreatedAtAfter(Conversation conversation, LocalDateTime after);
+
+    @Query("SELECT m FROM Message m WHERE m.conversation.id = :conversationId " +
+            "AND m.version > :sinceVersion AND m.version <= :untilVersion ORDER BY m.version ASC")
+    List<Message> findChangedSince(@Param("conversationId") Long conversationId,
+                                   @Param("sinceVersion") Long sinceVersion,
+                                   @Param("untilVersion") Long untilVersion,
+                                   Pageable pageable);
+
+    @Query("SELECT m FROM Message m WHERE m.conversation.id = :conversationId AND m.id > :afterId ORDER BY m.id ASC")
+    List<Message> findAfter(@Param("conversationId") Long conversationId,
+                            @Param("afterId") Long afterId,
+                            Pageable pageable);
 }
@@ -0,0 +1,49 @@
+package com.socialchat.rsocket;
+
+import com.socialchat.event.MessageSentEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * "Something new was committed in conversation X" notifications for streams waiting at
+ * the head of a conversation. A signal carries no data: woken streams read what they
+ * have not seen yet, so any number of messages costs each stream one read, and nothing
+ * is queued per stream.
+ */
+@Slf4j
+@Component
+public class ConversationSignals {
+
+    private static final int MAX_WAITING_CONVERSATIONS = 100_000;
+
+    // One pending signal per conversation; replaced each time it fires
+    private final Map<Long, Sinks.Empty<Void>> waiting = new ConcurrentHashMap<>();
+
+    /**
+     * Completes on the next signal for the conversation. Take it before reading, so a
+     * message committed between the read and the wait is not missed.
+     */
+    public Mono<Void> next(Long conversationId) {
+        if (waiting.size() >= MAX_WAITING_CONVERSATIONS) {
+            // Waking everyone costs one extra read per stream; streams re-arm as they go
+            waiting.values().forEach(Sinks.Empty::tryEmitEmpty);
+            waiting.clear();
+            log.debug("Conversation signal map reached {} entries and was reset", MAX_WAITING_CONVERSATIONS);
+        }
+        return waiting.computeIfAbsent(conversationId, id -> Sinks.empty()).asMono();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageSent(MessageSentEvent event) {
+        Sinks.Empty<Void> sink = waiting.remove(event.conversationId());
+        if (sink != null) {
+            sink.tryEmitEmpty();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.socialchat.rsocket;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.rsocket.SocketAcceptor;
+import io.rsocket.transport.ServerTransport;
+import io.rsocket.transport.netty.server.WebsocketRouteTransport;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.autoconfigure.rsocket.RSocketProperties;
+import org.springframework.boot.rsocket.server.RSocketServer;
+import org.springframework.boot.rsocket.server.RSocketServerException;
+import org.springframework.boot.rsocket.server.RSocketServerFactory;
+import org.springframework.boot.ssl.SslBundle;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.boot.web.server.Ssl;
+import org.springframework.boot.web.server.WebServerSslBundle;
+import org.springframework.web.cors.CorsConfiguration;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.websocket.WebsocketInbound;
+import reactor.netty.http.websocket.WebsocketOutbound;
+
+import javax.net.ssl.SSLException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Standalone RSocket-over-WebSocket server that checks the Origin of the upgrade request
+ * against the same patterns as /ws. Boot's own factory offers no hook on the HTTP
+ * handshake, so this one replaces it; port, address and TLS still come from
+ * {@code spring.rsocket.server.*}. Requests without an Origin header (non-browser
+ * clients) are accepted, as on /ws.
+ */
+@Slf4j
+public class OriginCheckingRSocketServerFactory implements RSocketServerFactory {
+
+    private static final Duration START_TIMEOUT = Duration.ofSeconds(30);
+
+    private final RSocketProperties.Server properties;
+    private final SslBundles sslBundles;
+    private final CorsConfiguration origins = new CorsConfiguration();
+
+    public OriginCheckingRSocketServerFactory(RSocketProperties.Server properties, SslBundles sslBundles,
+                                              List<String> allowedOriginPatterns) {
+        this.properties = properties;
+        this.sslBundles = sslBundles;
+        this.origins.setAllowedOriginPatterns(allowedOriginPatterns);
+    }
+
+    @Override
+    public RSocketServer create(SocketAcceptor socketAcceptor) {
+        ServerTransport.ConnectionAcceptor acceptor = io.rsocket.core.RSocketServer.create(socketAcceptor)
+                .asConnectionAcceptor();
+        BiFunction<WebsocketInbound, WebsocketOutbound, Publisher<Void>> rsocket =
+                WebsocketRouteTransport.newHandler(acceptor);
+
+        HttpServer httpServer = HttpServer.create()
+                .bindAddress(this::listenAddress)
+                .handle((request, response) -> {
+                    String origin = request.requestHeaders().get(HttpHeaderNames.ORIGIN);
+                    if (origin != null && origins.checkOrigin(origin) == null) {
+                        log.warn("RSocket handshake rejected for origin {}", origin);
+                        return response.status(HttpResponseStatus.FORBIDDEN).send();
+                    }
+                    return response.sendWebsocket(rsocket);
+                });
+        if (Ssl.isEnabled(properties.getSsl())) {
+            SslContext sslContext = sslContext(WebServerSslBundle.get(properties.getSsl(), sslBundles));
+            httpServer = httpServer.secure(spec -> spec.sslContext(sslContext));
+        }
+        return new Server(httpServer);
+    }
+
+    private InetSocketAddress listenAddress() {
+        int port = properties.getPort() == null ? 0 : properties.getPort();
+        return properties.getAddress() == null
+                ? new InetSocketAddress(port)
+                : new InetSocketAddress(properties.getAddress(), port);
+    }
+
+    private static SslContext sslContext(SslBundle bundle) {
+        try {
+            SslContextBuilder builder = SslContextBuilder.forServer(bundle.getManagers().getKeyManagerFactory());
+            if (bundle.getOptions().getEnabledProtocols() != null) {
+                builder.protocols(bundle.getOptions().getEnabledProtocols());
+            }
+            if (bundle.getOptions().getCiphers() != null) {
+                builder.ciphers(List.of(bundle.getOptions().getCiphers()));
+            }
+            return builder.build();
+        } catch (SSLException e) {
+            throw new IllegalStateException("Invalid TLS configuration for the RSocket server", e);
+        }
+    }
+
+    private static final class Server implements RSocketServer {
+
+        private final HttpServer httpServer;
+        private volatile DisposableServer channel;
+
+        Server(HttpServer httpServer) {
+            this.httpServer = httpServer;
+        }
+
+        @Override
+        public void start() throws RSocketServerException {
+            try {
+                channel = httpServer.bindNow(START_TIMEOUT);
+            } catch (Exception e) {
+                throw new RSocketServerException("Unable to start the RSocket server", e);
+            }
+        }
+
+        @Override
+        public void stop() throws RSocketServerException {
+            DisposableServer current = channel;
+            if (current != null) {
+                current.disposeNow();
+                channel = null;
+            }
+        }
+
+        @Override
+        public InetSocketAddress address() {
+            DisposableServer current = channel;
+            return current == null ? null : (InetSocketAddress) current.address();
+        }
+    }
+}
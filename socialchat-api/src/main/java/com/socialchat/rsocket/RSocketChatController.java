@@ -0,0 +1,163 @@
+package com.socialchat.rsocket;
+
+import com.socialchat.config.RSocketConfig;
+import com.socialchat.dto.chat.MessageRequest;
+import com.socialchat.dto.chat.MessageResponse;
+import com.socialchat.dto.chat.MessageStreamRequest;
+import com.socialchat.exception.BadRequestException;
+import com.socialchat.exception.UnauthorizedException;
+import com.socialchat.gateway.GatewayCommands;
+import com.socialchat.security.JwtClaims;
+import com.socialchat.security.JwtService;
+import com.socialchat.service.ConnectionAdmissionService;
+import com.socialchat.service.PresenceService;
+import com.socialchat.service.TokenRevocationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.rsocket.RSocketRequester;
+import org.springframework.messaging.rsocket.annotation.ConnectMapping;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * RSocket chat endpoint: conversation message streams and sends multiplexed over one
+ * connection, with reactive-streams backpressure.
+ *
+ * The SETUP frame carries the access token as bearer metadata; it is checked like a
+ * STOMP CONNECT (JwtService, revocation, admission) and the connection counts as a
+ * presence session while open.
+ *
+ * A message stream is read, not pushed: the server reads the next page of messages only
+ * once the client has asked for more, and at the head of the conversation it waits for
+ * {@link ConversationSignals} (or {@code poll-interval-ms}) before reading again. A slow
+ * client therefore slows down its own reads and nothing is queued for it on the server.
+ */
+@Slf4j
+@Controller
+@RequiredArgsConstructor
+public class RSocketChatController {
+
+    private final JwtService jwtService;
+    private final TokenRevocationService tokenRevocationService;
+    private final ConnectionAdmissionService admissionService;
+    private final PresenceService presenceService;
+    private final GatewayCommands gatewayCommands;
+    private final ConversationSignals signals;
+
+    private final Map<RSocketRequester, Session> sessions = new ConcurrentHashMap<>();
+
+    @Value("${app.rsocket.page-size:50}")
+    private int pageSize;
+
+    // Upper bound on how long a stream at the head waits without a signal, e.g. for
+    // messages committed on another node
+    @Value("${app.rsocket.poll-interval-ms:15000}")
+    private long pollIntervalMs;
+
+    @ConnectMapping
+    public Mono<Void> connect(RSocketRequester requester,
+                              @Header(value = RSocketConfig.BEARER_HEADER, required = false) String token) {
+        admissionService.admitToNode();
+
+        JwtClaims claims = token == null ? null : jwtService.validateAndParse(token)
+                .filter(JwtClaims::isAccessToken)
+                .filter(c -> !tokenRevocationService.isTokenRevoked(c.getTokenId()))
+                .orElse(null);
+        if (claims == null) {
+            log.warn("RSocket SETUP without a valid access token");
+            return Mono.error(new UnauthorizedException("Invalid or missing access token"));
+        }
+        admissionService.admitUser(claims.getUserId());
+
+        Session session = new Session(claims.getUserId(), claims.getUsername(), "rsocket-" + UUID.randomUUID());
+        sessions.put(requester, session);
+        presenceService.userConnected(session.presenceId(), session.userId(), session.username());
+        requester.rsocket().onClose()
+                .doFinally(signal -> {
+                    sessions.remove(requester);
+                    presenceService.userDisconnected(session.presenceId());
+                })
+                .subscribe();
+        log.debug("RSocket connection authenticated: {} (id: {})", session.username(), session.userId());
+        return Mono.empty();
+    }
+
+    /**
+     * Request-stream of the conversation's messages with an id greater than
+     * {@code afterId}, oldest first, continuing with new messages as they are sent.
+     */
+    @MessageMapping("conversations.{id}.messages")
+    public Flux<MessageResponse> messages(@DestinationVariable Long id, MessageStreamRequest request,
+                                          RSocketRequester requester) {
+        Session session = sessionOf(requester);
+        if (request == null || request.getAfterId() == null) {
+            return Flux.error(new BadRequestException("afterId is required"));
+        }
+
+        return Flux.defer(() -> {
+            AtomicLong cursor = new AtomicLong(request.getAfterId());
+            AtomicBoolean atHead = new AtomicBoolean(false);
+            AtomicReference<Mono<Void>> armed = new AtomicReference<>(Mono.empty());
+            Duration pollInterval = Duration.ofMillis(pollIntervalMs);
+
+            return Mono.defer(() -> {
+                        Mono<Void> wait = atHead.get() ? armed.get().timeout(pollInterval, Mono.empty()) : Mono.empty();
+                        return wait.then(Mono.defer(() -> {
+                            armed.set(signals.next(id));
+                            return Mono.fromCallable(() -> gatewayCommands.getMessagesAfterForUser(
+                                            id, session.userId(), cursor.get(), pageSize))
+                                    .subscribeOn(Schedulers.boundedElastic());
+                        }));
+                    })
+                    .doOnNext(page -> {
+                        if (!page.isEmpty()) {
+                            cursor.set(page.get(page.size() - 1).getId());
+                        }
+                        atHead.set(page.size() < pageSize);
+                    })
+                    .repeat()
+                    // Prefetch of one page: the next read happens only after this one is consumed
+                    .concatMapIterable(Function.<List<MessageResponse>>identity(), 1);
+        });
+    }
+
+    /**
+     * Request-response send; the message also reaches STOMP subscribers and streams.
+     */
+    @MessageMapping("conversations.{id}.send")
+    public Mono<MessageResponse> send(@DestinationVariable Long id, MessageRequest request,
+                                      RSocketRequester requester) {
+        Session session = sessionOf(requester);
+        if (request == null || request.getContent() == null || request.getContent().isBlank()) {
+            return Mono.error(new BadRequestException("Message content is required"));
+        }
+        return Mono.fromCallable(() -> gatewayCommands.sendMessageFromWebSocket(id, session.userId(), request))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Session sessionOf(RSocketRequester requester) {
+        Session session = sessions.get(requester);
+        if (session == null) {
+            throw new UnauthorizedException("Connection is not authenticated");
+        }
+        return session;
+    }
+
+    private record Session(Long userId, String username, String presenceId) {}
+}
@@ -3,7 +3,18 @@ package com.socialchat.service;
 import com.socialchat.dto.chat.*;
 import com.socialchat.dto.common.PageResponse;
 import com.socialchat.dto.user.UserResponse;
+import com.socialchat.dto.websocket.ConversationActivityEvent;
+import com.socialchat.dto.websocket.MessagePatchEvent;
+import com.socialchat.dto.websocket.ParticipantEvent;
 import com.socialchat.entity.*;
+import com.socialchat.event.ConversationReadEvent;
+import com.socialchat.event.InboxActivityEvent;
+import com.socialchat.event.MessagePatchedEvent;
+import com.socialchat.event.MessageSentEvent;
+import com.socialchat.event.ParticipantsChangedEvent;
+import com.socialchat.gateway.GatewayCommands;
+import com.socialchat.gateway.GatewayDirectory;
+import com.socialchat.gateway.GatewayEventPublisher;
 import com.socialchat.exception.BadRequestException;
 import com.socialchat.exception.ForbiddenException;
 import com.socialchat.exception.ResourceNotFoundException;
@@ -14,19 +25,34 @@ import com.socialchat.security.SecurityUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class ChatService {
+public class ChatService implements GatewayCommands {
+
+    private static final int MAX_CHANGES_PAGE = 500;
+    private static final int MAX_MENTIONS_PER_MESSAGE = 20;
+    private static final int INBOX_PREVIEW_LENGTH = 100;
+    private static final int PARTICIPANT_PREVIEW_SIZE = 5;
+    private static final int MAX_ROSTER_PAGE = 200;
+
+    // @username not preceded by a word character (skips e-mail addresses)
+    private static final Pattern MENTION_PATTERN = Pattern.compile("(?<![\\w@])@([A-Za-z0-9_]{3,50})");
 
     private final ConversationRepository conversationRepository;
     private final ConversationParticipantRepository participantRepository;
@@ -35,7 +61,13 @@ public class ChatService {
     private final ChatMapper chatMapper;
     private final UserMapper userMapper;
     private final FileStorageService fileStorageService;
-    private final WebSocketService webSocketService;
+    private final ReactionService reactionService;
+    private final NotificationService notificationService;
+    private final UsernameResolverService usernameResolverService;
+    private final ConversationRosterService rosterService;
+    private final RecentMessageService recentMessageService;
+    private final GatewayDirectory gatewayDirectory;
+    private final GatewayEventPublisher gatewayEvents;
     private final SecurityUtils securityUtils;
 
     @Transactional
@@ -74,6 +106,7 @@ public class ChatService {
         Conversation conversation = Conversation.builder()
                 .name(request.getName())
                 .isGroup(isGroup)
+                .createdBy(currentUser.getId())
                 .build();
 
         conversation = conversationRepository.save(conversation);
@@ -129,17 +162,50 @@ public class ChatService {
 
     public PageResponse<MessageResponse> getMessages(Long conversationId, Pageable pageable) {
         User currentUser = securityUtils.getCurrentUser();
+        int pageSize = pageable.getPageSize();
+        boolean bufferedPage = pageable.getPageNumber() == 0 && recentMessageService.isEnabled()
+                && pageSize <= recentMessageService.getCapacity();
+
+        // First page of a buffered conversation: no database round trip for the messages
+        if (bufferedPage && rosterService.isMember(conversationId, currentUser.getId())) {
+            RecentMessageService.Snapshot snapshot = recentMessageService.latest(conversationId, pageSize);
+            if (snapshot != null) {
+                return toMessagePage(snapshot.newestFirst(), 0, pageSize, snapshot.totalMessages());
+            }
+        }
+
         Conversation conversation = conversationRepository.findById(conversationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Conversation", conversationId));
 
         validateParticipant(conversation, currentUser);
 
+        if (bufferedPage) {
+            // Load a full ring so the next first-page reads are served from memory
+            long generation = recentMessageService.generation(conversationId);
+            Page<Message> recent = messageRepository.findByConversationOrderByCreatedAtDesc(
+                    conversation, PageRequest.of(0, recentMessageService.getCapacity()));
+            List<MessageResponse> newest = recent.getContent().stream()
+                    .map(chatMapper::toMessageResponse)
+                    .toList();
+            recentMessageService.seed(conversationId, generation, newest, recent.getTotalElements());
+
+            List<MessageResponse> content = newest.stream()
+                    .limit(pageSize)
+                    .map(m -> m.toBuilder().build())
+                    .collect(Collectors.toList());
+            return toMessagePage(content, 0, pageSize, recent.getTotalElements());
+        }
+
         Page<Message> messages = messageRepository.findByConversationOrderByCreatedAtDesc(conversation, pageable);
 
         List<MessageResponse> content = messages.getContent().stream()
                 .map(chatMapper::toMessageResponse)
                 .collect(Collectors.toList());
 
+        Map<Long, Map<String, Long>> reactions = reactionService.getReactionCounts(
+                content.stream().map(MessageResponse::getId).toList());
+        content.forEach(m -> m.setReactions(reactions.getOrDefault(m.getId(), Map.of())));
+
         return PageResponse.<MessageResponse>builder()
                 .content(content)
                 .page(messages.getNumber())
@@ -151,12 +217,70 @@ public class ChatService {
                 .build();
     }
 
+    /**
+     * Messages newer than {@code afterId}, oldest first, for a reconnecting client.
+     * Served from the recent-message buffer when it covers the range.
+     */
+    public List<MessageResponse> getMessagesAfter(Long conversationId, Long afterId, int limit) {
+        return getMessagesAfterInternal(conversationId, securityUtils.getCurrentUser(), afterId, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<MessageResponse> getMessagesAfterForUser(Long conversationId, Long userId, Long afterId, int limit) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", userId));
+        return getMessagesAfterInternal(conversationId, user, afterId, limit);
+    }
+
+    private List<MessageResponse> getMessagesAfterInternal(Long conversationId, User currentUser, Long afterId, int limit) {
+        if (!rosterService.isMember(conversationId, currentUser.getId())) {
+            Conversation conversation = conversationRepository.findById(conversationId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Conversation", conversationId));
+            validateParticipant(conversation, currentUser);
+        }
+
+        long after = afterId != null ? Math.max(afterId, 0) : 0;
+        int pageSize = Math.max(1, Math.min(limit, MAX_CHANGES_PAGE));
+
+        List<MessageResponse> messages = recentMessageService.after(conversationId, after, pageSize);
+        if (messages == null) {
+            messages = messageRepository.findAfter(conversationId, after, PageRequest.of(0, pageSize)).stream()
+                    .map(chatMapper::toMessageResponse)
+                    .collect(Collectors.toList());
+        }
+
+        Map<Long, Map<String, Long>> reactions = reactionService.getReactionCounts(
+                messages.stream().map(MessageResponse::getId).toList());
+        messages.forEach(m -> m.setReactions(reactions.getOrDefault(m.getId(), Map.of())));
+
+        return messages;
+    }
+
+    private PageResponse<MessageResponse> toMessagePage(List<MessageResponse> content, int page, int size, long total) {
+        Map<Long, Map<String, Long>> reactions = reactionService.getReactionCounts(
+                content.stream().map(MessageResponse::getId).toList());
+        content.forEach(m -> m.setReactions(reactions.getOrDefault(m.getId(), Map.of())));
+
+        int totalPages = (int) ((total + size - 1) / size);
+        return PageResponse.<MessageResponse>builder()
+                .content(content)
+                .page(page)
+                .size(size)
+                .totalElements(total)
+                .totalPages(totalPages)
+                .first(page == 0)
+                .last(page >= totalPages - 1)
+                .build();
+    }
+
     @Transactional
     public MessageResponse sendMessage(Long conversationId, MessageRequest request) {
         User currentUser = securityUtils.getCurrentUser();
         return sendMessageInternal(conversationId, currentUser, request);
     }
 
+    @Override
     @Transactional
     public MessageResponse sendMessageFromWebSocket(Long conversationId, Long userId, MessageRequest request) {
         User user = userRepository.findById(userId)
@@ -185,6 +309,7 @@ public class ChatService {
                 .conversation(conversation)
                 .sender(sender)
                 .content(content)
+                .version(nextMessageVersion(conversationId))
                 .build();
 
         message = messageRepository.save(message);
@@ -193,22 +318,144 @@ public class ChatService {
         conversation.setUpdatedAt(LocalDateTime.now());
         conversationRepository.save(conversation);
 
+        processMentions(conversationId, sender, message);
+
         MessageResponse response = chatMapper.toMessageResponse(message);
+        recentMessageService.put(conversationId, response);
 
-        // Send via WebSocket to all participants
-        webSocketService.sendChatMessage(conversationId, response);
+        // Pushed to participants once the transaction commits
+        gatewayEvents.publish(new MessageSentEvent(conversationId, response));
+        fanOutInboxActivity(conversationId, sender, message);
 
         log.info("Message sent in conversation {} by user {}", conversationId, sender.getUsername());
 
         return response;
     }
 
+    @Transactional
+    public MessageResponse editMessage(Long conversationId, Long messageId, MessageRequest request) {
+        User currentUser = securityUtils.getCurrentUser();
+        Message message = findOwnMessage(conversationId, messageId, currentUser);
+
+        if (request.getContent() == null || request.getContent().trim().isEmpty()) {
+            throw new BadRequestException("Message content cannot be empty");
+        }
+
+        String content = request.getContent().trim();
+        if (content.length() > 5000) {
+            throw new BadRequestException("Message content exceeds maximum length of 5000 characters");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        message.setContent(content);
+        message.setEditedAt(now);
+        message.setVersion(nextMessageVersion(conversationId));
+        message = messageRepository.save(message);
+
+        gatewayEvents.publish(new MessagePatchedEvent(conversationId, MessagePatchEvent.builder()
+                .conversationId(conversationId)
+                .messageId(messageId)
+                .version(message.getVersion())
+                .type(MessagePatchEvent.PatchType.EDITED)
+                .content(content)
+                .changedAt(now)
+                .build()));
+
+        log.info("Message {} edited in conversation {} by user {}", messageId, conversationId, currentUser.getUsername());
+
+        MessageResponse response = chatMapper.toMessageResponse(message);
+        recentMessageService.put(conversationId, response);
+        return response;
+    }
+
+    @Transactional
+    public void deleteMessage(Long conversationId, Long messageId) {
+        User currentUser = securityUtils.getCurrentUser();
+        Message message = findOwnMessage(conversationId, messageId, currentUser);
+
+        // Keep the row as a tombstone so delta sync can report the deletion
+        LocalDateTime now = LocalDateTime.now();
+        message.setContent(null);
+        message.setImageUrl(null);
+        message.setDeletedAt(now);
+        message.setVersion(nextMessageVersion(conversationId));
+        messageRepository.save(message);
+        recentMessageService.put(conversationId, chatMapper.toMessageResponse(message));
+
+        gatewayEvents.publish(new MessagePatchedEvent(conversationId, MessagePatchEvent.builder()
+                .conversationId(conversationId)
+                .messageId(messageId)
+                .version(message.getVersion())
+                .type(MessagePatchEvent.PatchType.DELETED)
+                .changedAt(now)
+                .build()));
+
+        log.info("Message {} deleted in conversation {} by user {}", messageId, conversationId, currentUser.getUsername());
+    }
+
+    /**
+     * Messages created, edited or deleted after sinceVersion, oldest change first.
+     * untilVersion is optional and inclusive; limit is capped at MAX_CHANGES_PAGE.
+     */
+    public MessageChangesResponse getMessageChanges(Long conversationId, Long sinceVersion, Long untilVersion, int limit) {
+        User currentUser = securityUtils.getCurrentUser();
+        Conversation conversation = conversationRepository.findById(conversationId)
+                .orElseThrow(() -> new ResourceNotFoundException("Conversation", conversationId));
+
+        validateParticipant(conversation, currentUser);
+
+        long since = sinceVersion != null ? Math.max(sinceVersion, 0) : 0;
+        long current = conversation.getMessageVersion() != null ? conversation.getMessageVersion() : 0;
+        long until = untilVersion != null ? Math.min(untilVersion, current) : current;
+        int pageSize = Math.max(1, Math.min(limit, MAX_CHANGES_PAGE));
+
+        if (since >= until) {
+            return MessageChangesResponse.builder()
+                    .conversationId(conversationId)
+                    .sinceVersion(since)
+                    .toVersion(since)
+                    .currentVersion(current)
+                    .hasMore(false)
+                    .messages(List.of())
+                    .build();
+        }
+
+        // Fetch one extra row to detect whether another page exists
+        List<Message> changed = messageRepository.findChangedSince(
+                conversationId, since, until, PageRequest.of(0, pageSize + 1));
+
+        boolean hasMore = changed.size() > pageSize;
+        if (hasMore) {
+            changed = changed.subList(0, pageSize);
+        }
+
+        List<MessageResponse> messages = changed.stream()
+                .map(chatMapper::toMessageResponse)
+                .collect(Collectors.toList());
+
+        Map<Long, Map<String, Long>> reactions = reactionService.getReactionCounts(
+                messages.stream().map(MessageResponse::getId).toList());
+        messages.forEach(m -> m.setReactions(reactions.getOrDefault(m.getId(), Map.of())));
+
+        long toVersion = hasMore ? changed.get(changed.size() - 1).getVersion() : until;
+
+        return MessageChangesResponse.builder()
+                .conversationId(conversationId)
+                .sinceVersion(since)
+                .toVersion(toVersion)
+                .currentVersion(current)
+                .hasMore(hasMore)
+                .messages(messages)
+                .build();
+    }
+
     @Transactional
     public void markConversationAsRead(Long conversationId) {
         User currentUser = securityUtils.getCurrentUser();
         markConversationAsReadInternal(conversationId, currentUser);
     }
 
+    @Override
     @Transactional
     public void markConversationAsReadFromWebSocket(Long conversationId, Long userId) {
         User user = userRepository.findById(userId)
@@ -225,12 +472,156 @@ public class ChatService {
         LocalDateTime now = LocalDateTime.now();
         participantRepository.updateLastReadAt(conversation, user, now);
 
-        // Notify via WebSocket
-        webSocketService.sendReadReceipt(conversationId, user.getId(), now);
+        // Read receipt is pushed after commit
+        gatewayEvents.publish(new ConversationReadEvent(conversationId, user.getId(), now));
 
         log.debug("Messages marked as read in conversation {} by user {}", conversationId, user.getUsername());
     }
 
+    @Transactional
+    public ConversationResponse updateSettings(Long conversationId, ConversationSettingsRequest request) {
+        User currentUser = securityUtils.getCurrentUser();
+        Conversation conversation = conversationRepository.findById(conversationId)
+                .orElseThrow(() -> new ResourceNotFoundException("Conversation", conversationId));
+
+        ConversationParticipant participant = participantRepository.findByConversationAndUser(conversation, currentUser)
+                .orElseThrow(() -> new ForbiddenException("Not a participant of this conversation"));
+
+        if (request.getMuted() != null) {
+            participant.setMuted(request.getMuted());
+        }
+        if (request.getPinned() != null) {
+            participant.setPinned(request.getPinned());
+        }
+        participantRepository.save(participant);
+
+        rosterService.putMember(conversationId, new ConversationRosterService.Member(
+                currentUser.getId(), currentUser.getUsername(), participant.getMuted(), participant.getPinned()));
+
+        log.debug("Conversation {} settings updated by user {}: muted={}, pinned={}",
+                conversationId, currentUser.getUsername(), participant.getMuted(), participant.getPinned());
+
+        return mapConversationResponse(conversation, currentUser);
+    }
+
+    /**
+     * Keyset-paginated roster ordered by join order. afterId is the nextCursor of the previous page.
+     */
+    public RosterPageResponse getParticipants(Long conversationId, Long afterId, int limit) {
+        Long currentUserId = securityUtils.getCurrentUserId();
+        if (!rosterService.isMember(conversationId, currentUserId)) {
+            throw new ForbiddenException("Not a participant of this conversation");
+        }
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_ROSTER_PAGE));
+        List<ConversationParticipant> rows = participantRepository.findRosterPage(
+                conversationId, afterId != null ? afterId : 0L, PageRequest.of(0, pageSize + 1));
+
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+
+        List<ParticipantResponse> content = rows.stream()
+                .map(p -> ParticipantResponse.builder()
+                        .participantId(p.getId())
+                        .user(userMapper.toResponse(p.getUser()))
+                        .joinedAt(p.getJoinedAt())
+                        .build())
+                .collect(Collectors.toList());
+
+        return RosterPageResponse.builder()
+                .content(content)
+                .nextCursor(hasMore ? rows.get(rows.size() - 1).getId() : null)
+                .hasMore(hasMore)
+                .participantCount(rosterService.getRoster(conversationId).size())
+                .build();
+    }
+
+    @Transactional
+    public void addParticipants(Long conversationId, AddParticipantsRequest request) {
+        User currentUser = securityUtils.getCurrentUser();
+        Conversation conversation = conversationRepository.findById(conversationId)
+                .orElseThrow(() -> new ResourceNotFoundException("Conversation", conversationId));
+
+        if (!Boolean.TRUE.equals(conversation.getIsGroup())) {
+            throw new BadRequestException("Participants can only be added to group conversations");
+        }
+
+        // Same rule as removing others: only the group owner changes the membership
+        if (!currentUser.getId().equals(ownerOf(conversation))) {
+            throw new ForbiddenException("Only the conversation owner can add participants");
+        }
+
+        ConversationRosterService.Roster roster = rosterService.getRoster(conversationId);
+        Set<Long> newIds = new HashSet<>(request.getUserIds());
+        newIds.removeIf(roster::contains);
+        if (newIds.isEmpty()) {
+            return;
+        }
+
+        List<User> users = userRepository.findAllById(newIds);
+        if (users.size() != newIds.size()) {
+            throw new BadRequestException("One or more users do not exist");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (User user : users) {
+            participantRepository.save(ConversationParticipant.builder()
+                    .conversation(conversation)
+                    .user(user)
+                    .joinedAt(now)
+                    .lastReadAt(now)
+                    .build());
+            rosterService.putMember(conversationId,
+                    new ConversationRosterService.Member(user.getId(), user.getUsername(), false, false));
+        }
+
+        gatewayEvents.publish(new ParticipantsChangedEvent(conversationId, ParticipantEvent.builder()
+                .conversationId(conversationId)
+                .type(ParticipantEvent.ChangeType.ADDED)
+                .userIds(List.copyOf(newIds))
+                .participantCount(roster.size() + newIds.size())
+                .build()));
+
+        log.info("User {} added {} participants to conversation {}", currentUser.getUsername(), newIds.size(), conversationId);
+    }
+
+    @Transactional
+    public void removeParticipant(Long conversationId, Long userId) {
+        Long currentUserId = securityUtils.getCurrentUserId();
+        Conversation conversation = conversationRepository.findById(conversationId)
+                .orElseThrow(() -> new ResourceNotFoundException("Conversation", conversationId));
+
+        // Members may remove themselves; only the group owner may remove others
+        Long ownerId = ownerOf(conversation);
+        if (!userId.equals(currentUserId) && !currentUserId.equals(ownerId)) {
+            throw new ForbiddenException("Only the conversation owner can remove other participants");
+        }
+
+        ConversationRosterService.Roster roster = rosterService.getRoster(conversationId);
+        if (!roster.contains(currentUserId)) {
+            throw new ForbiddenException("Not a participant of this conversation");
+        }
+
+        if (participantRepository.deleteByConversationIdAndUserId(conversationId, userId) == 0) {
+            throw new ResourceNotFoundException("Participant", userId);
+        }
+        rosterService.removeMember(conversationId, userId);
+        if (userId.equals(ownerId)) {
+            transferOwnership(conversationId, userId);
+        }
+
+        gatewayEvents.publish(new ParticipantsChangedEvent(conversationId, ParticipantEvent.builder()
+                .conversationId(conversationId)
+                .type(ParticipantEvent.ChangeType.REMOVED)
+                .userIds(List.of(userId))
+                .participantCount(roster.size() - 1)
+                .build()));
+
+        log.info("User {} removed from conversation {} by user {}", userId, conversationId, currentUserId);
+    }
+
     @Transactional
     public void leaveConversation(Long conversationId) {
         User currentUser = securityUtils.getCurrentUser();
@@ -239,12 +630,148 @@ public class ChatService {
 
         ConversationParticipant participant = participantRepository.findByConversationAndUser(conversation, currentUser)
                 .orElseThrow(() -> new ForbiddenException("Not a participant of this conversation"));
+        ConversationRosterService.Roster roster = rosterService.getRoster(conversationId);
 
         participantRepository.delete(participant);
+        rosterService.removeMember(conversationId, currentUser.getId());
+        if (currentUser.getId().equals(conversation.getCreatedBy())) {
+            transferOwnership(conversationId, currentUser.getId());
+        }
+
+        gatewayEvents.publish(new ParticipantsChangedEvent(conversationId, ParticipantEvent.builder()
+                .conversationId(conversationId)
+                .type(ParticipantEvent.ChangeType.REMOVED)
+                .userIds(List.of(currentUser.getId()))
+                .participantCount(Math.max(0, roster.size() - 1))
+                .build()));
 
         log.info("User {} left conversation {}", currentUser.getUsername(), conversationId);
     }
 
+    /**
+     * Resolve @mentions to participants, bump their unread-mention counters in one
+     * statement and push a MENTION notification to each.
+     */
+    private void processMentions(Long conversationId, User sender, Message message) {
+        Set<String> usernames = new HashSet<>();
+        Matcher matcher = MENTION_PATTERN.matcher(message.getContent());
+        while (matcher.find() && usernames.size() < MAX_MENTIONS_PER_MESSAGE) {
+            usernames.add(matcher.group(1));
+        }
+
+        if (usernames.isEmpty()) {
+            return;
+        }
+
+        Set<Long> candidateIds = new HashSet<>(usernameResolverService.resolve(usernames).values());
+        candidateIds.remove(sender.getId());
+        if (candidateIds.isEmpty()) {
+            return;
+        }
+
+        ConversationRosterService.Roster roster = rosterService.getRoster(conversationId);
+        List<Long> mentionedIds = candidateIds.stream()
+                .filter(roster::contains)
+                .toList();
+        if (mentionedIds.isEmpty()) {
+            return;
+        }
+
+        participantRepository.incrementUnreadMentions(conversationId, mentionedIds);
+
+        // Counters always move; pushes are skipped for members who muted the conversation
+        List<Long> notifyIds = mentionedIds.stream()
+                .filter(id -> !roster.get(id).muted())
+                .toList();
+        if (!notifyIds.isEmpty()) {
+            notificationService.createMentionNotifications(userRepository.findAllById(notifyIds), sender,
+                    conversationId, message.getId());
+        }
+
+        log.debug("Message {} mentions {} participants", message.getId(), mentionedIds.size());
+    }
+
+    /**
+     * Push a small inbox event to every unmuted, online member except the sender.
+     * Works from the roster snapshot only - no per-recipient queries.
+     */
+    private void fanOutInboxActivity(Long conversationId, User sender, Message message) {
+        List<ConversationRosterService.Member> recipients = rosterService.getRoster(conversationId).unmutedMembers();
+        if (recipients.isEmpty()) {
+            return;
+        }
+
+        String content = message.getContent();
+        ConversationActivityEvent event = ConversationActivityEvent.builder()
+                .conversationId(conversationId)
+                .messageId(message.getId())
+                .senderId(sender.getId())
+                .senderUsername(sender.getUsername())
+                .preview(content.length() > INBOX_PREVIEW_LENGTH ? content.substring(0, INBOX_PREVIEW_LENGTH) : content)
+                .createdAt(message.getCreatedAt())
+                .build();
+
+        List<String> usernames = recipients.stream()
+                .filter(member -> !member.userId().equals(sender.getId()))
+                .map(ConversationRosterService.Member::username)
+                .filter(gatewayDirectory::isUserConnected)
+                .toList();
+        if (!usernames.isEmpty()) {
+            gatewayEvents.publish(new InboxActivityEvent(usernames, event));
+        }
+    }
+
+    /**
+     * Allocate the next change version for a conversation.
+     * The row lock taken by the increment is held until commit, so versions
+     * become visible to delta sync in allocation order.
+     */
+    private long nextMessageVersion(Long conversationId) {
+        conversationRepository.incrementMessageVersion(conversationId);
+        return conversationRepository.findMessageVersion(conversationId)
+                .orElseThrow(() -> new ResourceNotFoundException("Conversation", conversationId));
+    }
+
+    private Message findOwnMessage(Long conversationId, Long messageId, User user) {
+        Message message = messageRepository.findById(messageId)
+                .orElseThrow(() -> new ResourceNotFoundException("Message", messageId));
+
+        if (!message.getConversation().getId().equals(conversationId)) {
+            throw new ResourceNotFoundException("Message", messageId);
+        }
+
+        if (!message.getSender().getId().equals(user.getId())) {
+            throw new ForbiddenException("Cannot modify this message");
+        }
+
+        if (message.isDeleted()) {
+            throw new BadRequestException("Message has been deleted");
+        }
+
+        return message;
+    }
+
+    /**
+     * Owner of a group. created_by is NULL once the owner's account is deleted; such a group
+     * passes to its earliest member, as it does when the owner leaves.
+     */
+    private Long ownerOf(Conversation conversation) {
+        if (conversation.getCreatedBy() != null || !Boolean.TRUE.equals(conversation.getIsGroup())) {
+            return conversation.getCreatedBy();
+        }
+        return transferOwnership(conversation.getId(), null);
+    }
+
+    // Updated in place rather than through the entity, whose @UpdateTimestamp would reorder inboxes
+    private Long transferOwnership(Long conversationId, Long leavingUserId) {
+        List<Long> candidates = participantRepository.findEarliestUserIds(
+                conversationId, leavingUserId != null ? leavingUserId : 0L, PageRequest.of(0, 1));
+        Long newOwnerId = candidates.isEmpty() ? null : candidates.get(0);
+        conversationRepository.updateOwner(conversationId, newOwnerId);
+        log.info("Ownership of conversation {} passed to user {}", conversationId, newOwnerId);
+        return newOwnerId;
+    }
+
     private void validateParticipant(Conversation conversation, User user) {
         boolean isParticipant = participantRepository.existsByConversationAndUser(conversation, user);
         if (!isParticipant) {
@@ -253,15 +780,25 @@ public class ChatService {
     }
 
     private ConversationResponse mapConversationResponse(Conversation conversation, User currentUser) {
-        List<UserResponse> participants = conversation.getParticipants().stream()
-                .map(p -> userMapper.toResponse(p.getUser()))
+        // Capped preview only - large groups page through getParticipants instead
+        List<UserResponse> participants = participantRepository
+                .findPreviewUsers(conversation.getId(), PageRequest.of(0, PARTICIPANT_PREVIEW_SIZE)).stream()
+                .map(userMapper::toResponse)
                 .collect(Collectors.toList());
+        int participantCount = (int) participantRepository.countByConversationId(conversation.getId());
 
         Message lastMessage = messageRepository.findTopByConversationOrderByCreatedAtDesc(conversation)
                 .orElse(null);
 
         long unreadCount = 0;
+        int unreadMentionCount = 0;
+        boolean muted = false;
+        boolean pinned = false;
         Optional<ConversationParticipant> currentParticipant = participantRepository.findByConversationAndUser(conversation, currentUser);
+        if (currentParticipant.isPresent()) {
+            muted = currentParticipant.get().getMuted();
+            pinned = currentParticipant.get().getPinned();
+        }
         if (currentParticipant.isPresent() && lastMessage != null) {
             LocalDateTime lastRead = currentParticipant.get().getLastReadAt();
             if (lastRead != null) {
@@ -270,15 +807,20 @@ public class ChatService {
                 // FIXED: If lastReadAt is null, count all messages
                 unreadCount = messageRepository.countByConversationAndCreatedAtAfter(conversation, LocalDateTime.MIN);
             }
+            unreadMentionCount = currentParticipant.get().getUnreadMentionCount();
         }
 
         return ConversationResponse.builder()
                 .id(conversation.getId())
                 .name(conversation.getName())
                 .isGroup(conversation.getIsGroup())
+                .participantCount(participantCount)
                 .participants(participants)
                 .lastMessage(lastMessage != null ? chatMapper.toMessageResponse(lastMessage) : null)
                 .unreadCount(unreadCount)
+                .unreadMentionCount(unreadMentionCount)
+                .muted(muted)
+                .pinned(pinned)
                 .createdAt(conversation.getCreatedAt())
                 .updatedAt(conversation.getUpdatedAt())
                 .build();
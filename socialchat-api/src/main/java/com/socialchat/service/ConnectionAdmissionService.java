@@ -0,0 +1,150 @@
+package com.socialchat.service;
+
+import com.socialchat.websocket.ConnectionRejectedException;
+import com.socialchat.websocket.UserSessionRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Admission control for STOMP CONNECT.
+ *
+ * Node-wide checks run before the token is parsed, so a reconnect storm is turned away
+ * cheaply: a token bucket on the connect rate and a cap on sessions per node. After
+ * authentication each user gets their own token bucket and a session cap. Rejections
+ * carry a retry-after hint; node-wide rejections add jitter so clients that were turned
+ * away together do not come back together.
+ */
+@Slf4j
+@Service
+public class ConnectionAdmissionService {
+
+    private static final int MAX_TRACKED_USERS = 100_000;
+
+    private final UserSessionRegistry sessionRegistry;
+    private final TokenBucket nodeBucket;
+    private final Map<Long, TokenBucket> userBuckets = new ConcurrentHashMap<>();
+    private final Counter rejectedNodeRate;
+    private final Counter rejectedNodeSessions;
+    private final Counter rejectedUserRate;
+    private final Counter rejectedUserSessions;
+
+    @Value("${app.websocket.admission.max-sessions-per-node:100000}")
+    private int maxSessionsPerNode;
+
+    @Value("${app.websocket.admission.max-sessions-per-user:10}")
+    private int maxSessionsPerUser;
+
+    @Value("${app.websocket.admission.user-connects-per-second:1}")
+    private double userConnectsPerSecond;
+
+    @Value("${app.websocket.admission.user-connect-burst:5}")
+    private int userConnectBurst;
+
+    @Value("${app.websocket.admission.max-retry-after-seconds:30}")
+    private int maxRetryAfterSeconds;
+
+    public ConnectionAdmissionService(UserSessionRegistry sessionRegistry, MeterRegistry meterRegistry,
+                                      @Value("${app.websocket.admission.node-connects-per-second:500}") double nodeConnectsPerSecond,
+                                      @Value("${app.websocket.admission.node-connect-burst:1000}") int nodeConnectBurst) {
+        this.sessionRegistry = sessionRegistry;
+        this.nodeBucket = new TokenBucket(nodeConnectBurst, nodeConnectsPerSecond);
+        this.rejectedNodeRate = rejectedCounter(meterRegistry, "node-rate");
+        this.rejectedNodeSessions = rejectedCounter(meterRegistry, "node-sessions");
+        this.rejectedUserRate = rejectedCounter(meterRegistry, "user-rate");
+        this.rejectedUserSessions = rejectedCounter(meterRegistry, "user-sessions");
+    }
+
+    /**
+     * Node-wide checks, before authentication.
+     */
+    public void admitToNode() {
+        if (sessionRegistry.getSessionCount() >= maxSessionsPerNode) {
+            rejectedNodeSessions.increment();
+            throw new ConnectionRejectedException("Server is at capacity", jittered(maxRetryAfterSeconds));
+        }
+
+        long waitMs = nodeBucket.tryAcquire();
+        if (waitMs > 0) {
+            rejectedNodeRate.increment();
+            throw new ConnectionRejectedException("Too many connections, try again later", jittered(toSeconds(waitMs)));
+        }
+    }
+
+    /**
+     * Per-user checks, once the user is known.
+     */
+    public void admitUser(Long userId) {
+        if (sessionRegistry.getSessionIds(userId).size() >= maxSessionsPerUser) {
+            rejectedUserSessions.increment();
+            log.debug("User {} rejected: {} sessions already open", userId, maxSessionsPerUser);
+            throw new ConnectionRejectedException("Too many open sessions for this user", maxRetryAfterSeconds);
+        }
+
+        if (userBuckets.size() >= MAX_TRACKED_USERS) {
+            // Cheap bound: a reset only forgives recent connects
+            userBuckets.clear();
+        }
+        long waitMs = userBuckets
+                .computeIfAbsent(userId, id -> new TokenBucket(userConnectBurst, userConnectsPerSecond))
+                .tryAcquire();
+        if (waitMs > 0) {
+            rejectedUserRate.increment();
+            log.debug("User {} rejected: reconnecting too fast", userId);
+            throw new ConnectionRejectedException("Reconnecting too fast", toSeconds(waitMs));
+        }
+    }
+
+    private long jittered(long seconds) {
+        long base = Math.max(1, seconds);
+        return Math.min(maxRetryAfterSeconds, base + ThreadLocalRandom.current().nextLong(base + 1));
+    }
+
+    private static long toSeconds(long millis) {
+        return Math.max(1, (millis + 999) / 1000);
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("websocket.connect.rejected")
+                .tag("reason", reason)
+                .description("STOMP CONNECT frames rejected by admission control")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Classic token bucket. Returns 0 when a token was taken, otherwise the time in
+     * milliseconds until the next token is available.
+     */
+    private static final class TokenBucket {
+
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(double capacity, double tokensPerSecond) {
+            this.capacity = capacity;
+            this.tokensPerNano = tokensPerSecond / 1_000_000_000d;
+            this.tokens = capacity;
+            this.lastRefill = System.nanoTime();
+        }
+
+        synchronized long tryAcquire() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / tokensPerNano / 1_000_000d);
+        }
+    }
+}
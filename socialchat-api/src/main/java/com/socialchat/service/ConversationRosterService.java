@@ -0,0 +1,231 @@
+package com.socialchat.service;
+
+import com.socialchat.repository.ConversationParticipantRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * In-memory roster snapshots per conversation, used on fan-out paths so that
+ * notification and push delivery never query participants per recipient.
+ *
+ * Snapshots are immutable and replaced copy-on-write. Each snapshot precomputes its
+ * list of unmuted members, so fan-out cost depends on unmuted members only. Changes are
+ * applied after commit with computeIfPresent and bump the conversation's change stamp.
+ * A load is cached only if the stamp did not move while it ran, and only when it ran
+ * outside a transaction: inside one, the database may answer from a snapshot older than
+ * a change whose after-commit already found nothing to update.
+ *
+ * Snapshots are cached only where this node sees every membership change: a single
+ * node, or the owner node in cluster mode. With the broker relay and no cluster mode,
+ * other nodes change memberships too and nothing is cached. Access checks
+ * ({@link #isMember}) always ask the database; rosters only drive fan-out.
+ */
+@Slf4j
+@Service
+public class ConversationRosterService {
+
+    private static final int MAX_CACHED_ROSTERS = 50_000;
+
+    private final ConversationParticipantRepository participantRepository;
+
+    // Map<conversationId, Roster>
+    private final Map<Long, Roster> rosters = new ConcurrentHashMap<>();
+    // Map<conversationId, stamp of its last change>; absent means changesFloor
+    private final Map<Long, Long> changes = new ConcurrentHashMap<>();
+    private final AtomicLong changeSequence = new AtomicLong();
+    private volatile long changesFloor;
+    private volatile Predicate<Long> owned;
+
+    public ConversationRosterService(ConversationParticipantRepository participantRepository,
+                                     @Value("${app.websocket.broker.mode:simple}") String brokerMode,
+                                     @Value("${app.cluster.enabled:false}") boolean clusterEnabled) {
+        this.participantRepository = participantRepository;
+        boolean sharedWithOtherNodes = "relay".equalsIgnoreCase(brokerMode) && !clusterEnabled;
+        this.owned = sharedWithOtherNodes ? id -> false : id -> true;
+        if (sharedWithOtherNodes) {
+            log.info("Broker relay without cluster mode: roster caching disabled");
+        }
+    }
+
+    public Roster getRoster(Long conversationId) {
+        Roster roster = rosters.get(conversationId);
+        if (roster != null) {
+            return roster;
+        }
+        if (!owned.test(conversationId)) {
+            // Other nodes apply changes to it; a copy here would go stale
+            return loadRoster(conversationId);
+        }
+
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // The transaction's snapshot may predate a change that was already applied here
+            return loadRoster(conversationId);
+        }
+
+        if (rosters.size() >= MAX_CACHED_ROSTERS) {
+            rosters.clear();
+            log.debug("Roster cache reached {} entries and was reset", MAX_CACHED_ROSTERS);
+        }
+        long stamp = changeStamp(conversationId);
+        Roster loaded = loadRoster(conversationId);
+        Roster cached = rosters.compute(conversationId, (id, current) ->
+                current != null ? current : changeStamp(id) == stamp ? loaded : null);
+        return cached != null ? cached : loaded;
+    }
+
+    /**
+     * Membership for access checks, always from the database: a cached roster can lag a
+     * removal, and a removed member must lose access at once.
+     */
+    public boolean isMember(Long conversationId, Long userId) {
+        if (userId == null) {
+            return false;
+        }
+        return participantRepository.existsByConversationIdAndUserId(conversationId, userId);
+    }
+
+    /**
+     * Add or replace a member once the current transaction commits.
+     */
+    public void putMember(Long conversationId, Member member) {
+        afterCommit(() -> {
+            markChanged(conversationId);
+            rosters.computeIfPresent(conversationId, (id, roster) -> roster.with(member));
+        });
+    }
+
+    /**
+     * Remove a member once the current transaction commits.
+     */
+    public void removeMember(Long conversationId, Long userId) {
+        afterCommit(() -> {
+            markChanged(conversationId);
+            rosters.computeIfPresent(conversationId, (id, roster) -> roster.without(userId));
+        });
+    }
+
+    public void evict(Long conversationId) {
+        afterCommit(() -> {
+            markChanged(conversationId);
+            rosters.remove(conversationId);
+        });
+    }
+
+    /**
+     * Restricts caching to the conversations this node owns (cluster mode).
+     */
+    public void setOwnershipFilter(Predicate<Long> owned) {
+        this.owned = owned;
+    }
+
+    /**
+     * Drops every cached roster matching {@code condition}; returns how many.
+     */
+    public int evictIf(Predicate<Long> condition) {
+        int before = rosters.size();
+        rosters.keySet().removeIf(condition);
+        return Math.max(0, before - rosters.size());
+    }
+
+    // Before the cached roster is touched, so a load in flight sees the stamp move
+    private void markChanged(Long conversationId) {
+        if (changes.size() >= MAX_CACHED_ROSTERS) {
+            // Raise the floor first: a forgotten change then still reads as newer than its loads
+            changesFloor = changeSequence.get();
+            changes.clear();
+        }
+        changes.put(conversationId, changeSequence.incrementAndGet());
+    }
+
+    private long changeStamp(Long conversationId) {
+        return changes.getOrDefault(conversationId, changesFloor);
+    }
+
+    private Roster loadRoster(Long conversationId) {
+        Map<Long, Member> members = new LinkedHashMap<>();
+        for (Object[] row : participantRepository.findRosterRows(conversationId)) {
+            Member member = new Member((Long) row[0], (String) row[1], (Boolean) row[2], (Boolean) row[3]);
+            members.put(member.userId(), member);
+        }
+        log.debug("Loaded roster for conversation {}: {} members", conversationId, members.size());
+        return new Roster(members);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    public record Member(Long userId, String username, boolean muted, boolean pinned) {}
+
+    /**
+     * Immutable roster snapshot.
+     */
+    public static final class Roster {
+
+        private final Map<Long, Member> members;
+        private final List<Member> unmutedMembers;
+
+        Roster(Map<Long, Member> members) {
+            this.members = Collections.unmodifiableMap(members);
+            this.unmutedMembers = members.values().stream()
+                    .filter(m -> !m.muted())
+                    .toList();
+        }
+
+        public boolean contains(Long userId) {
+            return members.containsKey(userId);
+        }
+
+        public Member get(Long userId) {
+            return members.get(userId);
+        }
+
+        public int size() {
+            return members.size();
+        }
+
+        public Collection<Member> members() {
+            return members.values();
+        }
+
+        public List<Member> unmutedMembers() {
+            return unmutedMembers;
+        }
+
+        Roster with(Member member) {
+            Map<Long, Member> copy = new LinkedHashMap<>(members);
+            copy.put(member.userId(), member);
+            return new Roster(copy);
+        }
+
+        Roster without(Long userId) {
+            if (!members.containsKey(userId)) {
+                return this;
+            }
+            Map<Long, Member> copy = new LinkedHashMap<>(members);
+            copy.remove(userId);
+            return new Roster(copy);
+        }
+    }
+}
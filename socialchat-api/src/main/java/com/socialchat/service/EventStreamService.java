@@ -0,0 +1,287 @@
+package com.socialchat.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-Sent Event streams of notifications and presence, for clients that only read.
+ *
+ * Streams carry the notification and presence entries of {@link UserEventJournal}, the
+ * same entries STOMP clients receive and replay. The SSE id is the stream's resume offset:
+ * live entries from different lanes can arrive out of offset order, so it is the highest
+ * {@link UserEventJournal#resumeOffset(long)} seen rather than the entry's own offset. A
+ * client that reconnects with {@code Last-Event-ID} is sent what it missed, possibly with
+ * a few events it already has; if the journal no longer holds all of it, the client gets
+ * a {@code reset} event and should reload over REST.
+ *
+ * An open stream counts as a session in the presence registry, so SSE clients appear
+ * online and receive their friends' presence. Writes happen on a virtual thread per busy
+ * stream; a stream that falls {@code max-queued-events} behind is closed, and the
+ * client resumes from its last id.
+ */
+@Slf4j
+@Service
+public class EventStreamService {
+
+    private static final String READY = "ready";
+    private static final String RESET = "reset";
+
+    private final UserEventJournal journal;
+    private final PresenceService presenceService;
+    private final ConnectionAdmissionService admissionService;
+
+    private final Executor sendExecutor = new VirtualThreadTaskExecutor("sse-send-");
+    // Copy-on-write per user: publish reads far more often than streams open or close
+    private final Map<String, Stream[]> streams = new ConcurrentHashMap<>();
+    private final AtomicInteger openStreams = new AtomicInteger();
+
+    @Value("${app.sse.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.sse.max-queued-events:512}")
+    private int maxQueuedEvents;
+
+    public EventStreamService(UserEventJournal journal, PresenceService presenceService,
+                              ConnectionAdmissionService admissionService, MeterRegistry meterRegistry) {
+        this.journal = journal;
+        this.presenceService = presenceService;
+        this.admissionService = admissionService;
+        Gauge.builder("sse.streams", openStreams, AtomicInteger::get)
+                .description("Open Server-Sent Event streams")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream for the user, replaying journaled events after {@code lastEventId}
+     * when one is given.
+     */
+    public SseEmitter open(Long userId, String username, Long lastEventId) {
+        admissionService.admitToNode();
+        admissionService.admitUser(userId);
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Stream stream = new Stream("sse-" + UUID.randomUUID(), username, emitter);
+        emitter.onCompletion(() -> close(stream));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> close(stream));
+
+        streams.compute(username, (key, current) -> append(current, stream));
+        openStreams.incrementAndGet();
+        presenceService.userConnected(stream.id, userId, username);
+
+        stream.start(lastEventId);
+        log.debug("SSE stream {} opened for {} (last event id {})", stream.id, username, lastEventId);
+        return emitter;
+    }
+
+    /**
+     * Sends a journaled notification or presence event to every open stream of its
+     * recipients.
+     */
+    public void publish(Collection<String> usernames, UserEventJournal.Entry entry) {
+        if (!isStreamed(entry)) {
+            return;
+        }
+        for (String username : usernames) {
+            Stream[] current = streams.get(username);
+            if (current != null) {
+                for (Stream stream : current) {
+                    stream.deliver(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Comment lines keep idle streams from being cut by proxies and surface dead ones.
+     */
+    @Scheduled(fixedRateString = "${app.sse.heartbeat-ms:25000}")
+    public void heartbeat() {
+        for (Stream[] current : streams.values()) {
+            for (Stream stream : current) {
+                stream.heartbeat();
+            }
+        }
+    }
+
+    public int getOpenStreamCount() {
+        return openStreams.get();
+    }
+
+    private void close(Stream stream) {
+        boolean[] removed = new boolean[1];
+        streams.computeIfPresent(stream.username, (key, current) -> {
+            Stream[] remaining = Arrays.stream(current).filter(s -> s != stream).toArray(Stream[]::new);
+            removed[0] = remaining.length < current.length;
+            return remaining.length == 0 ? null : remaining;
+        });
+        stream.discard();
+        if (removed[0]) {
+            openStreams.decrementAndGet();
+            presenceService.userDisconnected(stream.id);
+            log.debug("SSE stream {} closed for {}", stream.id, stream.username);
+        }
+    }
+
+    private static boolean isStreamed(UserEventJournal.Entry entry) {
+        return UserEventJournal.NOTIFICATION.equals(entry.type()) || UserEventJournal.PRESENCE.equals(entry.type());
+    }
+
+    private static Stream[] append(Stream[] current, Stream stream) {
+        if (current == null) {
+            return new Stream[]{stream};
+        }
+        Stream[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = stream;
+        return next;
+    }
+
+    private final class Stream {
+
+        private final String id;
+        private final String username;
+        private final SseEmitter emitter;
+        private final Deque<SseEventBuilder> queue = new ArrayDeque<>();
+
+        // Events at or below this offset were covered by the replay
+        private long replayedUpTo = Long.MAX_VALUE;
+        // Every entry at or below this offset has been queued; sent as the SSE id
+        private long resumeFrom;
+        private boolean draining;
+        private boolean closed;
+
+        Stream(String id, String username, SseEmitter emitter) {
+            this.id = id;
+            this.username = username;
+            this.emitter = emitter;
+        }
+
+        /**
+         * Runs after the stream is registered, so an event is either in the replay or
+         * delivered live; live events the replay already covered are skipped.
+         */
+        synchronized void start(Long lastEventId) {
+            if (lastEventId == null) {
+                // Entries appended but not yet pushed may have missed this stream's registration
+                UserEventJournal.Replay pending = journal.pending(username);
+                replayEntries(pending);
+                replayedUpTo = pending.lastOffset();
+                resumeFrom = replayedUpTo;
+                enqueue(SseEmitter.event().id(String.valueOf(replayedUpTo)).name(READY).data(""), false);
+                return;
+            }
+
+            // Also incomplete for an id above this node's last offset
+            UserEventJournal.Replay replay = journal.since(username, lastEventId);
+            long upTo = lastEventId;
+            if (!replay.complete()) {
+                upTo = replay.lastOffset();
+                enqueue(SseEmitter.event().id(String.valueOf(upTo)).name(RESET).data(""), false);
+            } else {
+                replayEntries(replay);
+                if (!replay.entries().isEmpty()) {
+                    upTo = replay.entries().getLast().offset();
+                }
+            }
+            replayedUpTo = upTo;
+            resumeFrom = upTo;
+        }
+
+        synchronized void deliver(UserEventJournal.Entry entry) {
+            if (entry.offset() > replayedUpTo) {
+                resumeFrom = Math.max(resumeFrom, journal.resumeOffset(entry.offset()));
+                enqueue(toEvent(entry, resumeFrom), true);
+            }
+        }
+
+        synchronized void heartbeat() {
+            if (queue.isEmpty()) {
+                enqueue(SseEmitter.event().comment(""), true);
+            }
+        }
+
+        synchronized void discard() {
+            closed = true;
+            queue.clear();
+        }
+
+        // Caller holds the monitor
+        private void replayEntries(UserEventJournal.Replay replay) {
+            for (UserEventJournal.Entry entry : replay.entries()) {
+                if (isStreamed(entry)) {
+                    // A replay is bounded by the journal, not by the live queue limit
+                    enqueue(toEvent(entry, entry.offset()), false);
+                }
+            }
+        }
+
+        // Caller holds the monitor
+        private void enqueue(SseEventBuilder event, boolean bounded) {
+            if (closed) {
+                return;
+            }
+            if (bounded && queue.size() >= maxQueuedEvents) {
+                log.debug("SSE stream {} for {} fell behind, closing", id, username);
+                closed = true;
+                queue.clear();
+                sendExecutor.execute(emitter::complete);
+                return;
+            }
+            queue.addLast(event);
+            if (!draining) {
+                draining = true;
+                sendExecutor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                SseEventBuilder next;
+                synchronized (this) {
+                    next = closed ? null : queue.pollFirst();
+                    if (next == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+
+                try {
+                    emitter.send(next);
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("SSE send to {} failed: {}", id, e.getMessage());
+                    synchronized (this) {
+                        draining = false;
+                    }
+                    emitter.completeWithError(e);
+                    close(this);
+                    return;
+                }
+            }
+        }
+
+        private SseEventBuilder toEvent(UserEventJournal.Entry entry, long id) {
+            return SseEmitter.event()
+                    .id(String.valueOf(id))
+                    .name(entry.type())
+                    .data(entry.payload());
+        }
+    }
+}
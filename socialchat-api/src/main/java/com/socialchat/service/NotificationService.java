@@ -5,6 +5,8 @@ import com.socialchat.dto.notification.NotificationResponse;
 import com.socialchat.dto.websocket.NotificationEvent;
 import com.socialchat.entity.Notification;
 import com.socialchat.entity.User;
+import com.socialchat.event.NotificationCreatedEvent;
+import com.socialchat.gateway.GatewayEventPublisher;
 import com.socialchat.exception.ForbiddenException;
 import com.socialchat.exception.ResourceNotFoundException;
 import com.socialchat.mapper.NotificationMapper;
@@ -17,6 +19,8 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -24,7 +28,7 @@ public class NotificationService {
 
     private final NotificationRepository notificationRepository;
     private final NotificationMapper notificationMapper;
-    private final WebSocketService webSocketService;
+    private final GatewayEventPublisher gatewayEvents;
     private final SecurityUtils securityUtils;
 
     @Transactional
@@ -49,7 +53,44 @@ public class NotificationService {
                 .createdAt(notification.getCreatedAt())
                 .build();
 
-        webSocketService.sendNotificationToUser(recipient.getUsername(), event);
+        gatewayEvents.publish(new NotificationCreatedEvent(List.of(recipient.getUsername()), event));
+    }
+
+    /**
+     * Creates the same notification for several recipients. Rows are saved in one
+     * batch; each recipient is pushed an event carrying their own row's id, so it can
+     * be marked read and matched against the REST list.
+     */
+    @Transactional
+    public void createNotifications(List<User> recipients, String type, String title, String message, String data) {
+        if (recipients.isEmpty()) {
+            return;
+        }
+
+        List<Notification> notifications = recipients.stream()
+                .map(recipient -> Notification.builder()
+                        .user(recipient)
+                        .type(type)
+                        .title(title)
+                        .message(message)
+                        .data(data)
+                        .build())
+                .toList();
+        notifications = notificationRepository.saveAll(notifications);
+        log.info("Notification created for {} users: {}", notifications.size(), type);
+
+        for (Notification notification : notifications) {
+            NotificationEvent event = NotificationEvent.builder()
+                    .id(notification.getId())
+                    .type(type)
+                    .title(title)
+                    .message(message)
+                    .data(data)
+                    .createdAt(notification.getCreatedAt())
+                    .build();
+            gatewayEvents.publish(new NotificationCreatedEvent(
+                    List.of(notification.getUser().getUsername()), event));
+        }
     }
 
     public void createFriendRequestNotification(User recipient, User sender, Long requestId) {
@@ -64,6 +105,13 @@ public class NotificationService {
                 accepter.getDisplayName() + " accepted your friend request", data);
     }
 
+    public void createMentionNotifications(List<User> recipients, User sender, Long conversationId, Long messageId) {
+        String data = String.format("{\"conversationId\": %d, \"messageId\": %d, \"senderId\": %d}",
+                conversationId, messageId, sender.getId());
+        createNotifications(recipients, "MENTION", "New Mention",
+                sender.getDisplayName() + " mentioned you", data);
+    }
+
     public PageResponse<NotificationResponse> getNotifications(Pageable pageable) {
         User user = securityUtils.getCurrentUser();
         Page<Notification> page = notificationRepository.findByUserOrderByCreatedAtDesc(user, pageable);
@@ -1,14 +1,18 @@
 package com.socialchat.service;
 
+import com.socialchat.dto.websocket.PresenceEvent;
+import com.socialchat.event.PresenceChangedEvent;
 import com.socialchat.repository.FriendRequestRepository;
+import com.socialchat.websocket.UserSessionRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
-import java.time.Instant;
-import java.util.Map;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -16,57 +20,67 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class PresenceService {
 
-    private final WebSocketService webSocketService;
+    private final ApplicationEventPublisher eventPublisher;
     private final FriendRequestRepository friendRequestRepository;
 
-    // Map<userId, ConnectionInfo>
-    private final Map<Long, ConnectionInfo> onlineUsers = new ConcurrentHashMap<>();
+    private final UserSessionRegistry sessionRegistry;
 
-    public void userConnected(Long userId, String username) {
-        if (userId == null || username == null) return;
+    public void userConnected(String sessionId, Long userId, String username) {
+        if (sessionId == null || userId == null || username == null) return;
 
-        onlineUsers.put(userId, new ConnectionInfo(username, Instant.now()));
-        log.info("User connected: {} (ID: {})", username, userId);
-
-        broadcastPresenceToFriends(userId, username, true);
+        if (sessionRegistry.register(sessionId, userId, username)) {
+            log.info("User connected: {} (ID: {})", username, userId);
+            broadcastPresenceToFriends(userId, username, true);
+        } else {
+            log.debug("Additional session {} for user {}", sessionId, username);
+        }
     }
 
-    public void userDisconnected(Long userId, String username) {
-        if (userId == null) return;
+    public void userDisconnected(String sessionId) {
+        if (sessionId == null) return;
 
-        ConnectionInfo info = onlineUsers.remove(userId);
-        if (info != null) {
-            log.info("User disconnected: {} (ID: {})", info.username(), userId);
-            broadcastPresenceToFriends(userId, info.username(), false);
+        Long userId = sessionRegistry.getUserId(sessionId);
+        String username = sessionRegistry.unregister(sessionId);
+        if (username != null) {
+            log.info("User disconnected: {} (ID: {})", username, userId);
+            broadcastPresenceToFriends(userId, username, false);
         }
     }
 
     private void broadcastPresenceToFriends(Long userId, String username, boolean online) {
         Set<Long> friendIds = friendRequestRepository.findFriendIdsByUserId(userId);
 
+        List<String> onlineFriends = new ArrayList<>();
         for (Long friendId : friendIds) {
-            ConnectionInfo friendInfo = onlineUsers.get(friendId);
-            if (friendInfo != null) {
-                // Friend is online, send them the presence update
-                webSocketService.sendPresenceUpdateToUser(friendInfo.username(), userId, username, online);
+            String friendUsername = sessionRegistry.getUsername(friendId);
+            if (friendUsername != null) {
+                onlineFriends.add(friendUsername);
             }
         }
-        log.debug("Presence update sent to {} friends for user {}", friendIds.size(), username);
+
+        if (!onlineFriends.isEmpty()) {
+            eventPublisher.publishEvent(new PresenceChangedEvent(onlineFriends, PresenceEvent.builder()
+                    .userId(userId)
+                    .username(username)
+                    .online(online)
+                    .timestamp(LocalDateTime.now())
+                    .build()));
+        }
+        log.debug("Presence update sent to {} of {} friends for user {}", onlineFriends.size(), friendIds.size(), username);
     }
 
     public boolean isUserOnline(Long userId) {
-        return userId != null && onlineUsers.containsKey(userId);
+        return sessionRegistry.isOnline(userId);
     }
 
     public boolean isUserOnline(String username) {
-        return onlineUsers.values().stream()
-                .anyMatch(info -> info.username().equals(username));
+        return sessionRegistry.isOnline(username);
     }
 
     public Set<Long> getOnlineFriendIds(Long userId) {
         Set<Long> friendIds = friendRequestRepository.findFriendIdsByUserId(userId);
         return friendIds.stream()
-                .filter(onlineUsers::containsKey)
+                .filter(sessionRegistry::isOnline)
                 .collect(Collectors.toSet());
     }
 
@@ -75,9 +89,6 @@ public class PresenceService {
     }
 
     public int getOnlineUserCount() {
-        return onlineUsers.size();
+        return sessionRegistry.getOnlineUserCount();
     }
-
-    // Record to store connection info
-    private record ConnectionInfo(String username, Instant connectedAt) {}
 }
\ No newline at end of file
@@ -0,0 +1,284 @@
+package com.socialchat.service;
+
+import com.socialchat.dto.websocket.ReactionEvent;
+import com.socialchat.entity.Message;
+import com.socialchat.entity.MessageReaction;
+import com.socialchat.entity.MessageReactionCount;
+import com.socialchat.event.ReactionsChangedEvent;
+import com.socialchat.exception.BadRequestException;
+import com.socialchat.exception.ForbiddenException;
+import com.socialchat.exception.ResourceNotFoundException;
+import com.socialchat.gateway.GatewayEventPublisher;
+import com.socialchat.repository.ConversationParticipantRepository;
+import com.socialchat.repository.MessageReactionCountRepository;
+import com.socialchat.repository.MessageReactionRepository;
+import com.socialchat.repository.MessageRepository;
+import com.socialchat.repository.UserRepository;
+import com.socialchat.security.SecurityUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Message reactions with aggregated counters.
+ *
+ * Each tap writes only its own message_reactions row. Counter deltas are coalesced
+ * in memory per conversation and applied once per (message, emoji) per flush window,
+ * followed by a single ReactionEvent frame per conversation. A popular message in a
+ * large group therefore costs one counter update and one broadcast per window,
+ * regardless of how many members react.
+ *
+ * Deltas that fail to apply are queued again. A counter whose statement failed midway,
+ * or that a delta would take below zero, is recounted from message_reactions instead.
+ * Pending deltas are flushed once more on shutdown.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReactionService {
+
+    private static final int MAX_EMOJI_LENGTH = 32;
+
+    private final MessageRepository messageRepository;
+    private final MessageReactionRepository reactionRepository;
+    private final MessageReactionCountRepository reactionCountRepository;
+    private final ConversationParticipantRepository participantRepository;
+    private final UserRepository userRepository;
+    private final GatewayEventPublisher gatewayEvents;
+    private final SecurityUtils securityUtils;
+
+    // conversationId -> queued counter work, mutated only inside compute/remove
+    private final Map<Long, PendingCounters> pendingCounters = new ConcurrentHashMap<>();
+
+    // Not transactional: the insert commits on its own, so a duplicate from a double tap
+    // can be caught here instead of rolling back the caller's transaction
+    public void addReaction(Long conversationId, Long messageId, String emoji) {
+        Long userId = securityUtils.getCurrentUserId();
+        String normalized = normalizeEmoji(emoji);
+        Message message = findMessageForParticipant(conversationId, messageId, userId);
+
+        if (reactionRepository.existsByMessageIdAndUserIdAndEmoji(messageId, userId, normalized)) {
+            return; // Already reacted - idempotent
+        }
+
+        try {
+            reactionRepository.saveAndFlush(MessageReaction.builder()
+                    .message(message)
+                    .user(userRepository.getReferenceById(userId))
+                    .emoji(normalized)
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            return; // A concurrent tap inserted it first
+        }
+
+        recordDelta(conversationId, messageId, normalized, 1);
+        log.debug("Reaction {} added to message {} by user {}", normalized, messageId, userId);
+    }
+
+    @Transactional
+    public void removeReaction(Long conversationId, Long messageId, String emoji) {
+        Long userId = securityUtils.getCurrentUserId();
+        String normalized = normalizeEmoji(emoji);
+        findMessageForParticipant(conversationId, messageId, userId);
+
+        int removed = reactionRepository.deleteByMessageIdAndUserIdAndEmoji(messageId, userId, normalized);
+        if (removed > 0) {
+            recordDelta(conversationId, messageId, normalized, -removed);
+            log.debug("Reaction {} removed from message {} by user {}", normalized, messageId, userId);
+        }
+    }
+
+    /**
+     * Current counts for a batch of messages in one query: messageId -> emoji -> count.
+     * Messages without reactions are absent from the result.
+     */
+    public Map<Long, Map<String, Long>> getReactionCounts(Collection<Long> messageIds) {
+        Map<Long, Map<String, Long>> result = new HashMap<>();
+        if (messageIds == null || messageIds.isEmpty()) {
+            return result;
+        }
+
+        for (MessageReactionCount counter : reactionCountRepository.findPositiveByMessageIdIn(messageIds)) {
+            result.computeIfAbsent(counter.getMessageId(), id -> new HashMap<>())
+                    .put(counter.getEmoji(), counter.getCount());
+        }
+        return result;
+    }
+
+    /**
+     * Apply coalesced counter deltas and broadcast one frame per conversation.
+     */
+    @Scheduled(fixedDelayString = "${app.reactions.flush-interval-ms:250}")
+    public void flushPendingReactions() {
+        if (pendingCounters.isEmpty()) {
+            return;
+        }
+
+        for (Long conversationId : pendingCounters.keySet()) {
+            PendingCounters batch = pendingCounters.remove(conversationId);
+            if (batch != null && !batch.isEmpty()) {
+                flushConversation(conversationId, batch);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushPendingReactions();
+        if (!pendingCounters.isEmpty()) {
+            log.warn("Reaction counters of {} conversations were not flushed before shutdown", pendingCounters.size());
+        }
+    }
+
+    private void flushConversation(Long conversationId, PendingCounters batch) {
+        Set<Long> messageIds = new HashSet<>();
+        ReactionKey applying = null;
+
+        try {
+            // A recount reads committed rows, so it already includes any delta queued for that counter
+            for (Iterator<ReactionKey> it = batch.recounts.iterator(); it.hasNext(); ) {
+                ReactionKey key = it.next();
+                batch.deltas.remove(key);
+                reactionCountRepository.recount(key.messageId(), key.emoji());
+                messageIds.add(key.messageId());
+                it.remove();
+            }
+
+            for (Iterator<Map.Entry<ReactionKey, Long>> it = batch.deltas.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<ReactionKey, Long> entry = it.next();
+                applying = entry.getKey();
+                if (!applyDelta(applying, entry.getValue())) {
+                    log.warn("Reaction counter {} of message {} drifted, recounting", applying.emoji(), applying.messageId());
+                    reactionCountRepository.recount(applying.messageId(), applying.emoji());
+                }
+                messageIds.add(applying.messageId());
+                it.remove();
+                applying = null;
+            }
+        } catch (Exception e) {
+            log.error("Error flushing reactions for conversation {}, queued again", conversationId, e);
+            if (applying != null) {
+                // The failed statement may have been applied, so the counter is recounted rather than retried
+                batch.deltas.remove(applying);
+                batch.recounts.add(applying);
+            }
+            requeue(conversationId, batch);
+        }
+
+        if (messageIds.isEmpty()) {
+            return;
+        }
+
+        try {
+            Map<Long, Map<String, Long>> counts = getReactionCounts(messageIds);
+            // Messages whose last reaction was removed are sent with an empty map
+            messageIds.forEach(id -> counts.putIfAbsent(id, Map.of()));
+
+            gatewayEvents.publish(new ReactionsChangedEvent(conversationId, ReactionEvent.builder()
+                    .conversationId(conversationId)
+                    .reactions(counts)
+                    .build()));
+        } catch (Exception e) {
+            log.error("Error broadcasting reactions for conversation {}", conversationId, e);
+        }
+
+        log.debug("Flushed {} reaction counters for conversation {}", messageIds.size(), conversationId);
+    }
+
+    private boolean applyDelta(ReactionKey key, long delta) {
+        if (delta > 0) {
+            reactionCountRepository.increment(key.messageId(), key.emoji(), delta);
+            return true;
+        }
+        return delta == 0 || reactionCountRepository.decrement(key.messageId(), key.emoji(), -delta) > 0;
+    }
+
+    private void requeue(Long conversationId, PendingCounters leftover) {
+        pendingCounters.compute(conversationId, (id, current) -> {
+            if (current == null) {
+                return leftover;
+            }
+            leftover.deltas.forEach((key, delta) -> current.deltas.merge(key, delta, Long::sum));
+            current.recounts.addAll(leftover.recounts);
+            return current;
+        });
+    }
+
+    // Queued after commit, so a rolled-back reaction never reaches the counters
+    private void recordDelta(Long conversationId, Long messageId, String emoji, long delta) {
+        ReactionKey key = new ReactionKey(messageId, emoji);
+        afterCommit(() -> pendingCounters.compute(conversationId, (id, pending) -> {
+            PendingCounters target = pending != null ? pending : new PendingCounters();
+            target.deltas.merge(key, delta, Long::sum);
+            return target;
+        }));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private Message findMessageForParticipant(Long conversationId, Long messageId, Long userId) {
+        if (!participantRepository.existsByConversationIdAndUserId(conversationId, userId)) {
+            throw new ForbiddenException("Not a participant of this conversation");
+        }
+
+        Message message = messageRepository.findById(messageId)
+                .orElseThrow(() -> new ResourceNotFoundException("Message", messageId));
+
+        if (!message.getConversation().getId().equals(conversationId)) {
+            throw new ResourceNotFoundException("Message", messageId);
+        }
+
+        if (message.isDeleted()) {
+            throw new BadRequestException("Message has been deleted");
+        }
+        return message;
+    }
+
+    private String normalizeEmoji(String emoji) {
+        if (emoji == null || emoji.isBlank()) {
+            throw new BadRequestException("Emoji is required");
+        }
+
+        String normalized = emoji.strip();
+        if (normalized.length() > MAX_EMOJI_LENGTH) {
+            throw new BadRequestException("Emoji must not exceed " + MAX_EMOJI_LENGTH + " characters");
+        }
+        return normalized;
+    }
+
+    private record ReactionKey(Long messageId, String emoji) {}
+
+    private static final class PendingCounters {
+        final Map<ReactionKey, Long> deltas = new HashMap<>();
+        final Set<ReactionKey> recounts = new HashSet<>();
+
+        boolean isEmpty() {
+            return deltas.isEmpty() && recounts.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.socialchat.service;
+
+import com.socialchat.dto.chat.MessageResponse;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Ring buffer of the most recent messages per conversation, so the first page of a
+ * conversation and "messages after id X" catch-up can be answered from memory.
+ *
+ * A ring is seeded from the first-page query and then kept current from committed sends,
+ * edits and deletes. Updates that arrive before the seed are kept and merged into it, and
+ * every entry is replaced only by a higher version, so a seed racing a write converges
+ * to the committed state. Rings are evicted least-recently-used once the estimated size
+ * of all buffered messages exceeds the global cap. An eviction drops the writes a ring
+ * was holding for its seed, so a seed whose query started before an eviction of its
+ * conversation is discarded.
+ *
+ * Only writes made through this node reach the buffer. With several nodes serving the
+ * same conversations it must be disabled, unless cluster mode routes each conversation
+ * to its owner node; then only owned conversations are buffered. Startup fails when it is
+ * enabled with the broker relay (several nodes) and without cluster mode.
+ */
+@Slf4j
+@Service
+public class RecentMessageService {
+
+    // Rough per-message overhead: response, sender and timestamps
+    private static final int MESSAGE_OVERHEAD_BYTES = 512;
+    private static final int MAX_EVICTION_STAMPS = 50_000;
+
+    @Value("${app.chat.recent-messages.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.chat.recent-messages.per-conversation:50}")
+    private int capacity;
+
+    @Value("${app.chat.recent-messages.max-memory-mb:64}")
+    private long maxMemoryMb;
+
+    @Value("${app.websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${app.cluster.enabled:false}")
+    private boolean clusterEnabled;
+
+    // Access-ordered: iteration starts at the least recently used conversation
+    private final LinkedHashMap<Long, Ring> rings = new LinkedHashMap<>(256, 0.75f, true);
+    private long estimatedBytes;
+    private volatile Predicate<Long> owned = id -> true;
+    // Map<conversationId, stamp of its last eviction>; absent means evictionFloor
+    private final Map<Long, Long> evictions = new HashMap<>();
+    private long evictionSequence;
+    private long evictionFloor;
+
+    @PostConstruct
+    void checkTopology() {
+        if (enabled && "relay".equalsIgnoreCase(brokerMode) && !clusterEnabled) {
+            throw new IllegalStateException("app.chat.recent-messages.enabled requires a single node or cluster mode: "
+                    + "with app.websocket.broker.mode=relay, set RECENT_MESSAGES_ENABLED=false or CLUSTER_ENABLED=true");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Restricts buffering to the conversations this node owns (cluster mode).
+     */
+    public void setOwnershipFilter(Predicate<Long> owned) {
+        this.owned = owned;
+    }
+
+    /**
+     * The newest {@code limit} messages, newest first, or null if the conversation is not
+     * buffered. Returned responses are copies.
+     */
+    public synchronized Snapshot latest(Long conversationId, int limit) {
+        Ring ring = enabled ? rings.get(conversationId) : null;
+        if (ring == null || !ring.seeded || limit > capacity) {
+            return null;
+        }
+        return new Snapshot(ring.newest(limit), ring.total);
+    }
+
+    /**
+     * Messages with an id greater than {@code afterId}, oldest first, or null if the
+     * buffer cannot prove it holds all of them.
+     */
+    public synchronized List<MessageResponse> after(Long conversationId, long afterId, int limit) {
+        Ring ring = enabled ? rings.get(conversationId) : null;
+        if (ring == null || !ring.seeded || !ring.covers(afterId)) {
+            return null;
+        }
+        return ring.after(afterId, limit);
+    }
+
+    /**
+     * Eviction generation of a conversation, to be read before the seed query starts and
+     * passed to {@link #seed}.
+     */
+    public synchronized long generation(Long conversationId) {
+        return evictions.getOrDefault(conversationId, evictionFloor);
+    }
+
+    /**
+     * Seeds a conversation from a first-page query: the newest messages, newest first,
+     * and the conversation's total message count. Skipped if the conversation was evicted
+     * since {@code generation} was read.
+     */
+    public synchronized void seed(Long conversationId, long generation, List<MessageResponse> newestFirst, long total) {
+        if (!enabled || !owned.test(conversationId) || generation(conversationId) != generation) {
+            return;
+        }
+
+        Ring ring = rings.get(conversationId);
+        if (ring != null && ring.seeded) {
+            return;
+        }
+
+        Ring seeded = new Ring(capacity);
+        for (int i = newestFirst.size() - 1; i >= 0; i--) {
+            seeded.upsert(newestFirst.get(i));
+        }
+        seeded.total = total;
+
+        if (ring != null) {
+            // Writes committed after the seed query ran
+            long newestSeeded = newestFirst.isEmpty() ? 0 : newestFirst.get(0).getId();
+            for (MessageResponse pending : ring.entries()) {
+                if (seeded.upsert(pending) && pending.getId() > newestSeeded) {
+                    seeded.total++;
+                }
+            }
+            estimatedBytes -= ring.bytes;
+        }
+
+        seeded.seeded = true;
+        rings.put(conversationId, seeded);
+        estimatedBytes += seeded.bytes;
+        evictIfNeeded();
+    }
+
+    /**
+     * Adds a new message, or replaces an edited or deleted one, once the current
+     * transaction commits.
+     */
+    public void put(Long conversationId, MessageResponse message) {
+        if (enabled) {
+            MessageResponse copy = message.toBuilder().build();
+            afterCommit(() -> putNow(conversationId, copy));
+        }
+    }
+
+    public synchronized void evict(Long conversationId) {
+        Ring ring = rings.remove(conversationId);
+        if (ring != null) {
+            estimatedBytes -= ring.bytes;
+            markEvicted(conversationId);
+        }
+    }
+
+    /**
+     * Drops every buffered conversation matching {@code condition}; returns how many.
+     */
+    public synchronized int evictIf(Predicate<Long> condition) {
+        int evicted = 0;
+        Iterator<Map.Entry<Long, Ring>> it = rings.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Ring> entry = it.next();
+            if (condition.test(entry.getKey())) {
+                estimatedBytes -= entry.getValue().bytes;
+                it.remove();
+                markEvicted(entry.getKey());
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    private synchronized void putNow(Long conversationId, MessageResponse message) {
+        Ring ring = rings.get(conversationId);
+        if (ring == null) {
+            if (!owned.test(conversationId)) {
+                return;
+            }
+            ring = new Ring(capacity);
+            rings.put(conversationId, ring);
+        }
+
+        long before = ring.bytes;
+        // A seeded ring holds every message in its id range, so a new entry is a new message
+        if (ring.upsert(message) && ring.seeded) {
+            ring.total++;
+        }
+        estimatedBytes += ring.bytes - before;
+        evictIfNeeded();
+    }
+
+    private void evictIfNeeded() {
+        long maxBytes = maxMemoryMb * 1024 * 1024;
+        Iterator<Map.Entry<Long, Ring>> it = rings.entrySet().iterator();
+        while (estimatedBytes > maxBytes && rings.size() > 1 && it.hasNext()) {
+            Map.Entry<Long, Ring> eldest = it.next();
+            estimatedBytes -= eldest.getValue().bytes;
+            it.remove();
+            markEvicted(eldest.getKey());
+        }
+    }
+
+    // On reset every conversation moves to the newest stamp, so seeds in flight are skipped at worst
+    private void markEvicted(Long conversationId) {
+        if (evictions.size() >= MAX_EVICTION_STAMPS) {
+            evictions.clear();
+            evictionFloor = evictionSequence;
+        }
+        evictions.put(conversationId, ++evictionSequence);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static long estimateBytes(MessageResponse message) {
+        long bytes = MESSAGE_OVERHEAD_BYTES;
+        if (message.getContent() != null) {
+            bytes += 2L * message.getContent().length();
+        }
+        if (message.getImageUrl() != null) {
+            bytes += 2L * message.getImageUrl().length();
+        }
+        return bytes;
+    }
+
+    public record Snapshot(List<MessageResponse> newestFirst, long totalMessages) {}
+
+    /**
+     * Fixed-size ring ordered by message id. Inserts land at the tail in the normal case;
+     * a late or out-of-order write shifts at most the entries newer than it.
+     */
+    private static final class Ring {
+
+        private final MessageResponse[] slots;
+        private int head;
+        private int size;
+        private long bytes;
+        private long total;
+        private boolean seeded;
+
+        Ring(int capacity) {
+            this.slots = new MessageResponse[capacity];
+        }
+
+        /**
+         * Inserts or replaces by id. Returns true if the message was not present before.
+         */
+        boolean upsert(MessageResponse message) {
+            long id = message.getId();
+
+            int pos = size - 1;
+            while (pos >= 0 && get(pos).getId() > id) {
+                pos--;
+            }
+
+            if (pos >= 0 && get(pos).getId() == id) {
+                MessageResponse current = get(pos);
+                if (version(current) >= version(message)) {
+                    return false;
+                }
+                bytes += estimateBytes(message) - estimateBytes(current);
+                set(pos, message);
+                return false;
+            }
+
+            int insertAt = pos + 1;
+            if (size == slots.length) {
+                if (insertAt == 0) {
+                    // Older than everything in a full ring
+                    return false;
+                }
+                bytes -= estimateBytes(get(0));
+                set(0, null);
+                head = (head + 1) % slots.length;
+                size--;
+                insertAt--;
+            }
+
+            for (int i = size; i > insertAt; i--) {
+                set(i, get(i - 1));
+            }
+            set(insertAt, message);
+            size++;
+            bytes += estimateBytes(message);
+            return true;
+        }
+
+        boolean covers(long afterId) {
+            return size == total || (size > 0 && get(0).getId() <= afterId);
+        }
+
+        List<MessageResponse> newest(int limit) {
+            int n = Math.min(limit, size);
+            List<MessageResponse> result = new ArrayList<>(n);
+            for (int i = size - 1; i >= size - n; i--) {
+                result.add(get(i).toBuilder().build());
+            }
+            return result;
+        }
+
+        List<MessageResponse> after(long afterId, int limit) {
+            List<MessageResponse> result = new ArrayList<>();
+            for (int i = 0; i < size && result.size() < limit; i++) {
+                MessageResponse message = get(i);
+                if (message.getId() > afterId) {
+                    result.add(message.toBuilder().build());
+                }
+            }
+            return result;
+        }
+
+        List<MessageResponse> entries() {
+            List<MessageResponse> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                result.add(get(i));
+            }
+            return result;
+        }
+
+        private MessageResponse get(int index) {
+            return slots[(head + index) % slots.length];
+        }
+
+        private void set(int index, MessageResponse message) {
+            slots[(head + index) % slots.length] = message;
+        }
+
+        private static long version(MessageResponse message) {
+            return message.getVersion() != null ? message.getVersion() : 0;
+        }
+    }
+}
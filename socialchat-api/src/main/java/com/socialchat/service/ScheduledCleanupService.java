@@ -1,5 +1,6 @@
 package com.socialchat.service;
 
+import com.socialchat.repository.MessageReactionCountRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -16,6 +17,7 @@ public class ScheduledCleanupService {
 
     private final TokenRevocationService tokenRevocationService;
     private final WebSocketAuthorizationService webSocketAuthorizationService;
+    private final MessageReactionCountRepository messageReactionCountRepository;
 
     /**
      * Clean up expired revoked tokens every hour
@@ -42,4 +44,17 @@ public class ScheduledCleanupService {
             log.error("Error during rate limit cleanup", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Remove reaction counters that dropped to zero every hour
+     */
+    @Scheduled(fixedRate = 3600000) // 1 hour
+    public void cleanupEmptyReactionCounters() {
+        try {
+            int removed = messageReactionCountRepository.deleteEmptyCounters();
+            log.debug("Removed {} empty reaction counters", removed);
+        } catch (Exception e) {
+            log.error("Error during reaction counter cleanup", e);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.socialchat.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Bounded journal of the events pushed to each user: notifications, presence and the
+ * events of every conversation the user is a member of. A client that reconnects passes
+ * its last offset and is sent only what it missed, over STOMP (/app/replay) or SSE
+ * (Last-Event-ID), instead of reloading everything over REST.
+ *
+ * Every event gets one offset, shared by all of its recipients. Offsets only grow: they
+ * start from the boot time in microseconds, so offsets handed out by an earlier run are
+ * always lower than this run's. Each user keeps the last {@code per-user} entries, and
+ * the least recently used users are dropped past {@code max-users}. A resume is complete
+ * only if nothing after the client's offset has been dropped; otherwise the client is
+ * told to reload. An offset above this node's last offset was not handed out by this
+ * journal, so it is never resumed from.
+ *
+ * Entries are appended on the event lanes before they are sent, and a lane reports
+ * each one with {@link #published(Entry)} once its pushes are out. Everything at or
+ * below {@link #getPublishedOffset()} has been pushed. Lanes run concurrently, so a
+ * client can receive offset N+1 before N. Its resume position is therefore not the
+ * highest offset it holds but the highest {@link #resumeOffset(long)} sent with its
+ * events; a resume from there may repeat events, which clients skip by offset.
+ *
+ * The journal is node-local and only sees events published on this node. In cluster mode
+ * a resume is reported incomplete while other nodes are live, since they publish some of
+ * the user's events.
+ */
+@Slf4j
+@Service
+public class UserEventJournal {
+
+    public static final String MESSAGE = "message";
+    public static final String MESSAGE_PATCH = "message-patch";
+    public static final String READ_RECEIPT = "read-receipt";
+    public static final String PARTICIPANTS = "participants";
+    public static final String NOTIFICATION = "notification";
+    public static final String PRESENCE = "presence";
+
+    private final int perUser;
+    private final int maxUsers;
+
+    // Access-ordered: iteration starts at the least recently used user
+    private final LinkedHashMap<String, Ring> journals = new LinkedHashMap<>(1024, 0.75f, true);
+    private long lastOffset;
+    // Appended but not yet reported as pushed
+    private final NavigableSet<Long> unpublished = new TreeSet<>();
+    // Highest offset that may have been lost with an evicted user
+    private long evictedFloor;
+    // False while events may be published on other nodes (cluster mode)
+    private volatile BooleanSupplier seesAllEvents = () -> true;
+
+    public UserEventJournal(@Value("${app.events.journal.per-user:256}") int perUser,
+                            @Value("${app.events.journal.max-users:100000}") int maxUsers) {
+        this.perUser = Math.max(1, perUser);
+        this.maxUsers = Math.max(1, maxUsers);
+        this.lastOffset = System.currentTimeMillis() * 1000;
+        this.evictedFloor = lastOffset;
+    }
+
+    /**
+     * Records one event for all of its recipients and returns it with its offset.
+     */
+    public synchronized Entry append(Collection<String> usernames, String type, String destination, Object payload) {
+        Entry entry = new Entry(++lastOffset, type, destination, payload);
+        unpublished.add(entry.offset());
+        for (String username : usernames) {
+            journals.computeIfAbsent(username, key -> new Ring(evictedFloor)).add(entry, perUser);
+        }
+        evictIfNeeded();
+        return entry;
+    }
+
+    /**
+     * Entries for the user with an offset greater than {@code offset}, oldest first.
+     * {@link Replay#complete()} is false when some of them are no longer held;
+     * {@link Replay#lastOffset()} is the journal position the replay is current to.
+     */
+    public synchronized Replay since(String username, long offset) {
+        if (offset > lastOffset || !seesAllEvents.getAsBoolean()) {
+            return new Replay(false, List.of(), lastOffset);
+        }
+        Ring ring = journals.get(username);
+        if (ring == null) {
+            return new Replay(offset >= evictedFloor, List.of(), lastOffset);
+        }
+        return new Replay(offset >= ring.floor, ring.after(offset), lastOffset);
+    }
+
+    /**
+     * The user's entries that were appended but may not have been pushed yet, oldest first.
+     */
+    public synchronized Replay pending(String username) {
+        Ring ring = journals.get(username);
+        return new Replay(true, ring == null ? List.of() : ring.after(getPublishedOffset()), lastOffset);
+    }
+
+    /**
+     * Tells the journal whether this node currently sees every event (cluster mode).
+     */
+    public void setCoverageCheck(BooleanSupplier seesAllEvents) {
+        this.seesAllEvents = seesAllEvents;
+    }
+
+    /**
+     * Marks an appended entry as pushed to its live recipients.
+     */
+    public synchronized void published(Entry entry) {
+        unpublished.remove(entry.offset());
+    }
+
+    public synchronized long getLastOffset() {
+        return lastOffset;
+    }
+
+    /**
+     * Highest offset at or below which every entry has been pushed.
+     */
+    public synchronized long getPublishedOffset() {
+        return unpublished.isEmpty() ? lastOffset : unpublished.first() - 1;
+    }
+
+    /**
+     * Where a client can resume from once it has the entry at {@code offset}, which is
+     * being pushed. Lanes push concurrently, so a higher offset can reach a client before
+     * a lower one: the entry's own offset is safe only when nothing below it is pending.
+     */
+    public synchronized long resumeOffset(long offset) {
+        long published = getPublishedOffset();
+        return published == offset - 1 ? offset : Math.min(published, offset);
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Ring>> it = journals.entrySet().iterator();
+        while (journals.size() > maxUsers && it.hasNext()) {
+            evictedFloor = lastOffset;
+            it.next();
+            it.remove();
+        }
+    }
+
+    /**
+     * One journaled event; {@code destination} is where clients receive it live.
+     */
+    public record Entry(long offset, String type, String destination, Object payload) {}
+
+    public record Replay(boolean complete, List<Entry> entries, long lastOffset) {}
+
+    private static final class Ring {
+
+        private final Deque<Entry> entries = new ArrayDeque<>();
+        // Entries at or below this offset may be missing
+        private long floor;
+
+        Ring(long floor) {
+            this.floor = floor;
+        }
+
+        void add(Entry entry, int capacity) {
+            entries.addLast(entry);
+            if (entries.size() > capacity) {
+                floor = entries.removeFirst().offset();
+            }
+        }
+
+        List<Entry> after(long offset) {
+            List<Entry> result = new ArrayList<>();
+            Iterator<Entry> it = entries.descendingIterator();
+            while (it.hasNext()) {
+                Entry entry = it.next();
+                if (entry.offset() <= offset) {
+                    break;
+                }
+                result.add(entry);
+            }
+            return result.reversed();
+        }
+    }
+}
@@ -21,6 +21,7 @@ public class UserService {
     private final UserRepository userRepository;
     private final UserMapper userMapper;
     private final FileStorageService fileStorageService;
+    private final UsernameResolverService usernameResolverService;
     private final SecurityUtils securityUtils;
 
     public UserResponse getCurrentUser() {
@@ -74,6 +75,7 @@ public class UserService {
     public void deleteCurrentUser() {
         User user = securityUtils.getCurrentUser();
         userRepository.delete(user);
+        usernameResolverService.evict(user.getUsername());
         log.info("User deleted: {}", user.getUsername());
     }
 }
@@ -0,0 +1,73 @@
+package com.socialchat.service;
+
+import com.socialchat.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory username -> user id cache used to resolve @mentions.
+ * Usernames are immutable, so entries only need evicting when an account is deleted.
+ * Misses are resolved in a single batched query.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UsernameResolverService {
+
+    private static final int MAX_ENTRIES = 100_000;
+
+    private final UserRepository userRepository;
+
+    // Map<lowercase username, userId>
+    private final Map<String, Long> idsByUsername = new ConcurrentHashMap<>();
+
+    /**
+     * Resolve usernames to ids. Unknown usernames are absent from the result.
+     */
+    public Map<String, Long> resolve(Collection<String> usernames) {
+        Map<String, Long> resolved = new HashMap<>();
+        List<String> misses = new ArrayList<>();
+
+        for (String username : usernames) {
+            String key = username.toLowerCase(Locale.ROOT);
+            Long id = idsByUsername.get(key);
+            if (id != null) {
+                resolved.put(key, id);
+            } else {
+                misses.add(key);
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            if (idsByUsername.size() >= MAX_ENTRIES) {
+                // Cheap bound: usernames are re-resolved on demand after a reset
+                idsByUsername.clear();
+                log.debug("Username cache reached {} entries and was reset", MAX_ENTRIES);
+            }
+
+            for (Object[] row : userRepository.findIdsByUsernameIn(misses)) {
+                Long id = (Long) row[0];
+                String key = ((String) row[1]).toLowerCase(Locale.ROOT);
+                idsByUsername.put(key, id);
+                resolved.put(key, id);
+            }
+        }
+
+        return resolved;
+    }
+
+    public void evict(String username) {
+        if (username != null) {
+            idsByUsername.remove(username.toLowerCase(Locale.ROOT));
+        }
+    }
+}
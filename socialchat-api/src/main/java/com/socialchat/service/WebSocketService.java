@@ -1,44 +1,95 @@
 package com.socialchat.service;
 
 import com.socialchat.dto.chat.MessageResponse;
+import com.socialchat.dto.websocket.ConversationActivityEvent;
+import com.socialchat.dto.websocket.MessagePatchEvent;
 import com.socialchat.dto.websocket.NotificationEvent;
+import com.socialchat.dto.websocket.ParticipantEvent;
 import com.socialchat.dto.websocket.PresenceEvent;
+import com.socialchat.dto.websocket.ReactionEvent;
 import com.socialchat.dto.websocket.ReadReceiptEvent;
 import com.socialchat.dto.websocket.TypingEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class WebSocketService {
 
+    /**
+     * Native header carrying the {@link UserEventJournal} offset of a journaled event.
+     * Clients use it to skip events they have already applied.
+     */
+    public static final String JOURNAL_OFFSET_HEADER = "journal-offset";
+
+    /**
+     * Native header carrying {@link UserEventJournal#resumeOffset(long)} when a journaled
+     * event is sent: every event at or below it reaches the session with or before this frame. Frames from different
+     * conversations can arrive out of offset order, so clients keep the highest resume
+     * offset they have seen, not the highest journal-offset, and pass it back to resume.
+     */
+    public static final String JOURNAL_RESUME_HEADER = "journal-resume";
+
+    public static final String NOTIFICATIONS_QUEUE = "/queue/notifications";
+    public static final String PRESENCE_QUEUE = "/queue/presence";
+
     private final SimpMessagingTemplate messagingTemplate;
+    private final UserEventJournal journal;
 
     // ==================== CHAT MESSAGES ====================
 
-    public void sendChatMessage(Long conversationId, MessageResponse message) {
-        String destination = "/topic/conversations/" + conversationId + "/messages";
-        messagingTemplate.convertAndSend(destination, message);
+    public static String conversationDestination(Long conversationId, String channel) {
+        return "/topic/conversations/" + conversationId + "/" + channel;
+    }
+
+    public void sendChatMessage(Long conversationId, MessageResponse message, long offset) {
+        String destination = conversationDestination(conversationId, "messages");
+        messagingTemplate.convertAndSend(destination, message, offsetHeader(offset));
         log.debug("Message sent to conversation {}", conversationId);
     }
 
+    public void sendMessagePatch(Long conversationId, MessagePatchEvent patch, long offset) {
+        String destination = conversationDestination(conversationId, "message-updates");
+        messagingTemplate.convertAndSend(destination, patch, offsetHeader(offset));
+        log.debug("Message patch {} sent for message {} in conversation {}", patch.getType(), patch.getMessageId(), conversationId);
+    }
+
+    public void sendInboxActivity(Collection<String> usernames, ConversationActivityEvent event) {
+        sendToUsers(usernames, "/queue/inbox", event);
+        log.debug("Inbox activity sent to {} users for conversation {}", usernames.size(), event.getConversationId());
+    }
+
+    public void sendParticipantChange(Long conversationId, ParticipantEvent event, long offset) {
+        String destination = conversationDestination(conversationId, "members");
+        messagingTemplate.convertAndSend(destination, event, offsetHeader(offset));
+        log.debug("Participant change {} sent for conversation {}: {}", event.getType(), conversationId, event.getUserIds());
+    }
+
     // ==================== READ RECEIPTS ====================
 
-    public void sendReadReceipt(Long conversationId, Long userId, LocalDateTime readAt) {
-        ReadReceiptEvent event = ReadReceiptEvent.builder()
-                .conversationId(conversationId)
-                .userId(userId)
-                .readAt(readAt)
-                .build();
+    public void sendReadReceipt(ReadReceiptEvent event, long offset) {
+        String destination = conversationDestination(event.getConversationId(), "read-receipts");
+        messagingTemplate.convertAndSend(destination, event, offsetHeader(offset));
+        log.debug("Read receipt sent for conversation {} by user {}", event.getConversationId(), event.getUserId());
+    }
 
-        String destination = "/topic/conversations/" + conversationId + "/read-receipts";
+    // ==================== REACTIONS ====================
+
+    public void sendReactionUpdate(Long conversationId, ReactionEvent event) {
+        String destination = "/topic/conversations/" + conversationId + "/reactions";
         messagingTemplate.convertAndSend(destination, event);
-        log.debug("Read receipt sent for conversation {} by user {}", conversationId, userId);
+        log.debug("Reaction update sent for conversation {}: {} messages", conversationId, event.getReactions().size());
     }
 
     // ==================== TYPING INDICATORS ====================
@@ -83,13 +134,24 @@ public class WebSocketService {
         log.debug("Presence update sent to {} for user {}: {}", targetUsername, username, online ? "online" : "offline");
     }
 
+    public void sendPresenceUpdateToUsers(Collection<String> targetUsernames, PresenceEvent event, long offset) {
+        sendToUsers(targetUsernames, PRESENCE_QUEUE, event, offset);
+        log.debug("Presence update sent to {} users for user {}: {}", targetUsernames.size(), event.getUsername(),
+                event.isOnline() ? "online" : "offline");
+    }
+
     // ==================== NOTIFICATIONS ====================
 
-    public void sendNotificationToUser(String username, NotificationEvent notification) {
-        messagingTemplate.convertAndSendToUser(username, "/queue/notifications", notification);
+    public void sendNotificationToUser(String username, NotificationEvent notification, long offset) {
+        messagingTemplate.convertAndSendToUser(username, NOTIFICATIONS_QUEUE, notification, offsetHeader(offset));
         log.debug("Notification sent to user {}: {}", username, notification.getType());
     }
 
+    public void sendNotificationToUsers(Collection<String> usernames, NotificationEvent notification, long offset) {
+        sendToUsers(usernames, NOTIFICATIONS_QUEUE, notification, offset);
+        log.debug("Notification sent to {} users: {}", usernames.size(), notification.getType());
+    }
+
     // ==================== GENERIC USER MESSAGING ====================
 
     public void sendToUser(String username, String destination, Object payload) {
@@ -97,8 +159,51 @@ public class WebSocketService {
         log.debug("Message sent to user {} at {}", username, destination);
     }
 
+    /**
+     * Sends the same payload to many users. The payload is serialized once and the
+     * resulting bytes are shared by every per-user message, instead of running the
+     * JSON converter again for each recipient as convertAndSendToUser would.
+     */
+    public void sendToUsers(Collection<String> usernames, String destination, Object payload) {
+        sendToUsers(usernames, destination, payload, null);
+    }
+
+    private void sendToUsers(Collection<String> usernames, String destination, Object payload, Long offset) {
+        if (usernames.isEmpty()) {
+            return;
+        }
+
+        Message<?> encoded = encode(payload, offset);
+        String prefix = messagingTemplate.getUserDestinationPrefix();
+        for (String username : usernames) {
+            messagingTemplate.send(prefix + username.replace("/", "%2F") + destination, encoded);
+        }
+    }
+
     public void sendToTopic(String topic, Object payload) {
         messagingTemplate.convertAndSend("/topic/" + topic, payload);
         log.debug("Message sent to topic: {}", topic);
     }
+
+    private Message<?> encode(Object payload, Long offset) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        if (offset != null) {
+            accessor.setNativeHeader(JOURNAL_OFFSET_HEADER, String.valueOf(offset));
+            accessor.setNativeHeader(JOURNAL_RESUME_HEADER, String.valueOf(journal.resumeOffset(offset)));
+        }
+        accessor.setLeaveMutable(true);
+        Message<?> message = messagingTemplate.getMessageConverter().toMessage(payload, accessor.getMessageHeaders());
+        if (message == null) {
+            throw new MessageConversionException("Unable to convert payload of type " + payload.getClass().getName());
+        }
+        // Sealed so each send copies the headers to set its own destination and keeps the shared payload
+        accessor.setImmutable();
+        return message;
+    }
+
+    private Map<String, Object> offsetHeader(long offset) {
+        // Plain header maps are sent as STOMP native headers
+        return Map.of(JOURNAL_OFFSET_HEADER, String.valueOf(offset),
+                JOURNAL_RESUME_HEADER, String.valueOf(journal.resumeOffset(offset)));
+    }
 }
@@ -0,0 +1,75 @@
+package com.socialchat.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.DefaultContentTypeResolver;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * JSON converter for outbound payloads that, while any session has negotiated CBOR, also
+ * encodes the payload object as CBOR and attaches it as the {@value #CBOR_PAYLOAD_HEADER}
+ * header. The broker copies headers to every subscriber's message, so
+ * {@link PayloadEncodingInterceptor} only swaps the payload for CBOR sessions: one CBOR
+ * encoding per publish instead of a JSON parse per delivered frame.
+ *
+ * Messages that come back from an external broker (relay mode) lose the header and are
+ * converted from their JSON bytes instead.
+ */
+@Slf4j
+public class CborAttachingMessageConverter extends MappingJackson2MessageConverter {
+
+    public static final String CBOR_PAYLOAD_HEADER = "socialchat.cborPayload";
+
+    private final ObjectMapper cborMapper;
+    private final BooleanSupplier cborInUse;
+
+    public CborAttachingMessageConverter(ObjectMapper objectMapper, BooleanSupplier cborInUse) {
+        setObjectMapper(objectMapper);
+        DefaultContentTypeResolver resolver = new DefaultContentTypeResolver();
+        resolver.setDefaultMimeType(MimeTypeUtils.APPLICATION_JSON);
+        setContentTypeResolver(resolver);
+        // Same modules and features as the JSON mapper, so both encodings carry the same fields
+        this.cborMapper = objectMapper.copyWith(new CBORFactory());
+        this.cborInUse = cborInUse;
+    }
+
+    @Override
+    protected boolean canConvertTo(Object payload, @Nullable MessageHeaders headers) {
+        // Left to the String and byte[] converters, as without this converter
+        return !(payload instanceof String) && !(payload instanceof byte[]) && super.canConvertTo(payload, headers);
+    }
+
+    @Override
+    @Nullable
+    public Message<?> toMessage(Object payload, @Nullable MessageHeaders headers, @Nullable Object conversionHint) {
+        Message<?> message = super.toMessage(payload, headers, conversionHint);
+        if (message == null || !cborInUse.getAsBoolean()) {
+            return message;
+        }
+
+        byte[] cbor;
+        try {
+            cbor = cborMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not encode {} as CBOR: {}", payload.getClass().getSimpleName(), e.getMessage());
+            return message;
+        }
+
+        MessageHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, MessageHeaderAccessor.class);
+        if (accessor != null && accessor.isMutable()) {
+            accessor.setHeader(CBOR_PAYLOAD_HEADER, cbor);
+            return message;
+        }
+        return MessageBuilder.fromMessage(message).setHeader(CBOR_PAYLOAD_HEADER, cbor).build();
+    }
+}
@@ -2,51 +2,56 @@ package com.socialchat.websocket;
 
 import com.socialchat.dto.chat.MessageRequest;
 import com.socialchat.dto.websocket.ChatMessageEvent;
+import com.socialchat.dto.websocket.JournaledEvent;
 import com.socialchat.dto.websocket.ReadReceiptEvent;
+import com.socialchat.dto.websocket.ReplayEvent;
 import com.socialchat.dto.websocket.TypingEvent;
+import com.socialchat.gateway.GatewayCommands;
 import com.socialchat.security.JwtAuthenticationToken;
-import com.socialchat.service.ChatService;
 import com.socialchat.service.PresenceService;
+import com.socialchat.service.UserEventJournal;
 import com.socialchat.service.WebSocketService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.event.EventListener;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.socket.messaging.SessionConnectedEvent;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 
 import java.security.Principal;
+import java.util.List;
 
 @Slf4j
 @Controller
 @RequiredArgsConstructor
 public class ChatWebSocketHandler {
 
+    private static final String RESUME_OFFSET_HEADER = "resume-offset";
+
     private final PresenceService presenceService;
-    private final ChatService chatService;
+    private final GatewayCommands gatewayCommands;
     private final WebSocketService webSocketService;
+    private final UserEventJournal userEventJournal;
 
     @EventListener
     public void handleWebSocketConnect(SessionConnectedEvent event) {
         StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
         Principal user = accessor.getUser();
         if (user instanceof JwtAuthenticationToken jwtAuth) {
-            presenceService.userConnected(jwtAuth.getUserId(), jwtAuth.getUsername());
+            presenceService.userConnected(accessor.getSessionId(), jwtAuth.getUserId(), jwtAuth.getUsername());
         }
     }
 
     @EventListener
     public void handleWebSocketDisconnect(SessionDisconnectEvent event) {
-        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
-        Principal user = accessor.getUser();
-        if (user instanceof JwtAuthenticationToken jwtAuth) {
-            presenceService.userDisconnected(jwtAuth.getUserId(), jwtAuth.getUsername());
-        }
+        presenceService.userDisconnected(event.getSessionId());
     }
 
     @MessageMapping("/chat/{conversationId}/message")
@@ -77,13 +82,13 @@ public class ChatWebSocketHandler {
             return;
         }
 
-        // Persist message via ChatService (which also broadcasts via WebSocket)
+        // Persist message on the domain side, which broadcasts it once committed
         // Note: Authorization already checked in WebSocketSecurityConfig interceptor
         MessageRequest request = new MessageRequest();
         request.setContent(content.trim());
 
         try {
-            chatService.sendMessageFromWebSocket(conversationId, userId, request);
+            gatewayCommands.sendMessageFromWebSocket(conversationId, userId, request);
         } catch (Exception e) {
             log.error("Error processing WebSocket message: {}", e.getMessage());
         }
@@ -120,13 +125,51 @@ public class ChatWebSocketHandler {
         if (userId != null) {
             // Note: Authorization already checked in WebSocketSecurityConfig interceptor
             try {
-                chatService.markConversationAsReadFromWebSocket(conversationId, userId);
+                gatewayCommands.markConversationAsReadFromWebSocket(conversationId, userId);
             } catch (Exception e) {
                 log.error("Error marking conversation as read: {}", e.getMessage());
             }
         }
     }
 
+    /**
+     * Journaled events after the client's resume offset, answered once to the subscribing
+     * session. Clients subscribe to /app/replay with the highest journal-resume they have
+     * seen right after CONNECT and drop events whose journal-offset they already have.
+     */
+    @SubscribeMapping("/replay")
+    public ReplayEvent handleReplay(
+            @Header(name = RESUME_OFFSET_HEADER, required = false) Long resumeOffset,
+            SimpMessageHeaderAccessor headerAccessor) {
+
+        JwtAuthenticationToken auth = getJwtAuthentication(headerAccessor);
+        if (auth == null) return null;
+
+        if (resumeOffset == null) {
+            // Events above the pushed offset may still be on their way to this session
+            long lastOffset = userEventJournal.getPublishedOffset();
+            return ReplayEvent.builder().complete(true).lastOffset(lastOffset).events(List.of()).build();
+        }
+
+        UserEventJournal.Replay replay = userEventJournal.since(auth.getUsername(), resumeOffset);
+        List<JournaledEvent> events = !replay.complete() ? List.of() : replay.entries().stream()
+                .map(entry -> JournaledEvent.builder()
+                        .offset(entry.offset())
+                        .type(entry.type())
+                        .destination(entry.destination())
+                        .payload(entry.payload())
+                        .build())
+                .toList();
+        log.debug("Replaying {} events to {} after offset {} (complete: {})",
+                events.size(), auth.getUsername(), resumeOffset, replay.complete());
+
+        return ReplayEvent.builder()
+                .complete(replay.complete())
+                .lastOffset(replay.lastOffset())
+                .events(events)
+                .build();
+    }
+
     private JwtAuthenticationToken getJwtAuthentication(SimpMessageHeaderAccessor headerAccessor) {
         Principal principal = headerAccessor.getUser();
         if (principal instanceof JwtAuthenticationToken jwtAuth) {
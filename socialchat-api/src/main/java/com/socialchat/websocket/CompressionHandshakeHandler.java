@@ -0,0 +1,192 @@
+package com.socialchat.websocket;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.server.HandshakeFailureException;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Handshake handler for the native /ws endpoint that decides whether a client gets
+ * permessage-deflate.
+ *
+ * The servlet container does the actual compression; this class only controls the
+ * negotiation. Every compressed session holds a native deflater and inflater (roughly
+ * 300 KB with the default window), so the number of compressed sessions per node is
+ * capped. Clients over the cap, or all clients when compression is disabled, connect
+ * without the extension and receive plain frames. Low-footprint mode disables it too.
+ *
+ * Tomcat negotiates extensions from the request's Sec-WebSocket-Extensions header and
+ * falls back to its own installed extensions when the handshake handler selects none, so
+ * a refused client has permessage-deflate removed from that header before the upgrade.
+ * A slot under the cap is reserved during the handshake and released if the session ends
+ * up uncompressed, so concurrent handshakes cannot overshoot it.
+ */
+@Slf4j
+@Component
+public class CompressionHandshakeHandler extends DefaultHandshakeHandler {
+
+    private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+    private static final String RESERVED_ATTRIBUTE = "compression.reserved";
+    private static final String COUNTED_ATTRIBUTE = "compression.counted";
+
+    private final AtomicInteger compressedSessions = new AtomicInteger();
+
+    @Value("${app.websocket.compression.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.websocket.compression.max-sessions:5000}")
+    private int maxSessions;
+
+    @Value("${app.websocket.low-footprint.enabled:false}")
+    private boolean lowFootprint;
+
+    public CompressionHandshakeHandler(MeterRegistry meterRegistry) {
+        Gauge.builder("websocket.compression.sessions", compressedSessions, AtomicInteger::get)
+                .description("WebSocket sessions that negotiated permessage-deflate")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean doHandshake(ServerHttpRequest request, ServerHttpResponse response,
+            WebSocketHandler wsHandler, Map<String, Object> attributes) throws HandshakeFailureException {
+        if (!offersDeflate(request)) {
+            return super.doHandshake(request, response, wsHandler, attributes);
+        }
+        if (!enabled || lowFootprint || !reserveSlot()) {
+            if (enabled && !lowFootprint) {
+                log.debug("Compressed session cap of {} reached, connecting {} without deflate", maxSessions, request.getRemoteAddress());
+            }
+            return super.doHandshake(withoutDeflate(request), response, wsHandler, attributes);
+        }
+
+        attributes.put(RESERVED_ATTRIBUTE, Boolean.TRUE);
+        boolean upgraded = false;
+        try {
+            upgraded = super.doHandshake(request, response, wsHandler, attributes);
+            return upgraded;
+        } finally {
+            if (!upgraded) {
+                attributes.remove(RESERVED_ATTRIBUTE);
+                compressedSessions.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Settles each session's reservation against what was actually negotiated and keeps
+     * the compressed session count in step. Registered as a transport decorator in
+     * WebSocketConfig.
+     */
+    public WebSocketHandlerDecoratorFactory sessionTracker() {
+        return handler -> new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                Map<String, Object> attributes = session.getAttributes();
+                boolean reserved = attributes.remove(RESERVED_ATTRIBUTE) != null;
+                boolean compressed = isCompressed(session);
+                if (compressed && !reserved) {
+                    compressedSessions.incrementAndGet();
+                } else if (!compressed && reserved) {
+                    compressedSessions.decrementAndGet();
+                }
+                if (compressed) {
+                    attributes.put(COUNTED_ATTRIBUTE, Boolean.TRUE);
+                }
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                if (session.getAttributes().remove(COUNTED_ATTRIBUTE) != null) {
+                    compressedSessions.decrementAndGet();
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    private boolean reserveSlot() {
+        while (true) {
+            int current = compressedSessions.get();
+            if (current >= maxSessions) {
+                return false;
+            }
+            if (compressedSessions.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private static boolean offersDeflate(ServerHttpRequest request) {
+        return request.getHeaders().getOrEmpty(WebSocketHttpHeaders.SEC_WEBSOCKET_EXTENSIONS).stream()
+                .flatMap(value -> WebSocketExtension.parseExtensions(value).stream())
+                .anyMatch(CompressionHandshakeHandler::isDeflate);
+    }
+
+    private static boolean isCompressed(WebSocketSession session) {
+        return session.getExtensions().stream().anyMatch(CompressionHandshakeHandler::isDeflate);
+    }
+
+    private static boolean isDeflate(WebSocketExtension extension) {
+        return PERMESSAGE_DEFLATE.equalsIgnoreCase(extension.getName());
+    }
+
+    // The container reads the header from the servlet request, so it is filtered there
+    private static ServerHttpRequest withoutDeflate(ServerHttpRequest request) {
+        if (!(request instanceof ServletServerHttpRequest servletRequest)) {
+            return request;
+        }
+        HttpServletRequest filtered = new HttpServletRequestWrapper(servletRequest.getServletRequest()) {
+            @Override
+            public String getHeader(String name) {
+                if (!WebSocketHttpHeaders.SEC_WEBSOCKET_EXTENSIONS.equalsIgnoreCase(name)) {
+                    return super.getHeader(name);
+                }
+                Enumeration<String> values = getHeaders(name);
+                return values.hasMoreElements() ? values.nextElement() : null;
+            }
+
+            @Override
+            public Enumeration<String> getHeaders(String name) {
+                Enumeration<String> values = super.getHeaders(name);
+                if (!WebSocketHttpHeaders.SEC_WEBSOCKET_EXTENSIONS.equalsIgnoreCase(name) || values == null) {
+                    return values;
+                }
+                List<String> kept = new ArrayList<>();
+                for (String value : Collections.list(values)) {
+                    for (String extension : value.split(",")) {
+                        String trimmed = extension.trim();
+                        String extensionName = trimmed.split(";", 2)[0].trim();
+                        if (!trimmed.isEmpty() && !PERMESSAGE_DEFLATE.equalsIgnoreCase(extensionName)) {
+                            kept.add(trimmed);
+                        }
+                    }
+                }
+                return Collections.enumeration(kept);
+            }
+        };
+        return new ServletServerHttpRequest(filtered);
+    }
+}
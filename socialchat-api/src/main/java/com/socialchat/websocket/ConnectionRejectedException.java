@@ -0,0 +1,19 @@
+package com.socialchat.websocket;
+
+/**
+ * Thrown from CONNECT handling when admission control turns a session away. The STOMP
+ * ERROR frame carries the message and a {@code retry-after} header in seconds.
+ */
+public class ConnectionRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ConnectionRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,133 @@
+package com.socialchat.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parses STOMP destinations into typed routes for frame authorization.
+ *
+ * Destinations are matched by a single left-to-right scan over fixed prefixes and a digit
+ * run, with no regex. Parsed routes are cached by destination string, so repeated SENDs to
+ * the same conversation are one hash lookup.
+ */
+@Slf4j
+@Component
+public class DestinationRouter {
+
+    private static final int MAX_CACHED_DESTINATIONS = 50_000;
+
+    private static final String USER_QUEUE_PREFIX = "/user/queue/";
+    private static final String PRESENCE_TOPIC = "/topic/presence";
+    private static final String NOTIFICATIONS_TOPIC_PREFIX = "/topic/notifications";
+    private static final String CONVERSATION_TOPIC_PREFIX = "/topic/conversations/";
+    private static final String CONVERSATION_APP_PREFIX = "/app/chat/";
+    private static final String REPLAY_APP_DESTINATION = "/app/replay";
+
+    private static final List<String> TOPIC_CHANNELS =
+            List.of("messages", "message-updates", "typing", "read-receipts", "reactions", "members");
+    private static final List<String> APP_CHANNELS = List.of("message", "typing", "read");
+
+    // Longest id that cannot overflow a long
+    private static final int MAX_ID_DIGITS = 18;
+
+    public enum Kind {
+        USER_QUEUE,
+        PUBLIC_PRESENCE,
+        LEGACY_NOTIFICATIONS,
+        CONVERSATION_TOPIC,
+        CONVERSATION_SEND,
+        REPLAY,
+        UNKNOWN
+    }
+
+    /**
+     * A parsed destination. {@code conversationId} and {@code channel} are only set for
+     * conversation routes; {@code channel} is null for the bare conversation destination.
+     */
+    public record Route(Kind kind, long conversationId, String channel) {
+
+        public boolean isConversation() {
+            return kind == Kind.CONVERSATION_TOPIC || kind == Kind.CONVERSATION_SEND;
+        }
+    }
+
+    private static final Route USER_QUEUE = new Route(Kind.USER_QUEUE, 0, null);
+    private static final Route PUBLIC_PRESENCE = new Route(Kind.PUBLIC_PRESENCE, 0, null);
+    private static final Route LEGACY_NOTIFICATIONS = new Route(Kind.LEGACY_NOTIFICATIONS, 0, null);
+    private static final Route REPLAY = new Route(Kind.REPLAY, 0, null);
+    private static final Route UNKNOWN = new Route(Kind.UNKNOWN, 0, null);
+
+    private final Map<String, Route> routesByDestination = new ConcurrentHashMap<>();
+
+    public Route resolve(String destination) {
+        Route route = routesByDestination.get(destination);
+        if (route == null) {
+            route = parse(destination);
+            if (routesByDestination.size() >= MAX_CACHED_DESTINATIONS) {
+                routesByDestination.clear();
+                log.debug("Destination route cache reached {} entries and was reset", MAX_CACHED_DESTINATIONS);
+            }
+            routesByDestination.put(destination, route);
+        }
+        return route;
+    }
+
+    static Route parse(String destination) {
+        if (destination.startsWith(CONVERSATION_TOPIC_PREFIX)) {
+            return parseConversation(destination, CONVERSATION_TOPIC_PREFIX.length(), Kind.CONVERSATION_TOPIC, TOPIC_CHANNELS);
+        }
+        if (destination.startsWith(CONVERSATION_APP_PREFIX)) {
+            return parseConversation(destination, CONVERSATION_APP_PREFIX.length(), Kind.CONVERSATION_SEND, APP_CHANNELS);
+        }
+        if (destination.startsWith(USER_QUEUE_PREFIX)) {
+            return USER_QUEUE;
+        }
+        if (destination.equals(REPLAY_APP_DESTINATION)) {
+            return REPLAY;
+        }
+        if (destination.equals(PRESENCE_TOPIC)) {
+            return PUBLIC_PRESENCE;
+        }
+        if (destination.startsWith(NOTIFICATIONS_TOPIC_PREFIX)) {
+            return LEGACY_NOTIFICATIONS;
+        }
+        return UNKNOWN;
+    }
+
+    private static Route parseConversation(String destination, int start, Kind kind, List<String> channels) {
+        int length = destination.length();
+        int pos = start;
+        long id = 0;
+        while (pos < length && pos - start < MAX_ID_DIGITS) {
+            char c = destination.charAt(pos);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            id = id * 10 + (c - '0');
+            pos++;
+        }
+
+        if (pos == start) {
+            return UNKNOWN;
+        }
+        if (pos == length) {
+            return new Route(kind, id, null);
+        }
+        if (destination.charAt(pos) != '/') {
+            return UNKNOWN;
+        }
+
+        int channelStart = pos + 1;
+        int channelLength = length - channelStart;
+        for (String channel : channels) {
+            if (channel.length() == channelLength && destination.startsWith(channel, channelStart)) {
+                return new Route(kind, id, channel);
+            }
+        }
+        return UNKNOWN;
+    }
+}
@@ -0,0 +1,263 @@
+package com.socialchat.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.socialchat.service.WebSocketService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.OrderedMessageChannelDecorator;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Opt-in micro-batching of outbound events per session.
+ *
+ * A session opts in by subscribing to {@value #BATCH_DESTINATION}. From then on its JSON
+ * MESSAGE frames are not sent one by one but collected and delivered as a single frame on
+ * that subscription, whose body is an array of
+ * {@code {"destination": ..., "subscription": ..., "offset": ..., "resume": ..., "body": <original payload>}},
+ * where {@code offset} and {@code resume} are the journal-offset and journal-resume headers
+ * of journaled events and absent otherwise.
+ * A batch is flushed {@code window-ms} after its first event, or earlier once it reaches
+ * {@code max-events} or {@code max-bytes}. Frames that cannot be batched (non-JSON) flush
+ * the pending batch first.
+ *
+ * Batches are flushed from the broker scheduler as well as from the sending thread, so
+ * they cannot use the broker's own per-session ordering. Every MESSAGE frame of a batched
+ * session, batched or not, therefore leaves through one ordered lane per session that
+ * hands the next frame to the outbound channel only after the previous one was handled.
+ * The lane relies on the callback interceptor that setPreservePublishOrder installs on
+ * the outbound channel.
+ *
+ * Typing and presence frames bypass batching and go out on their own, so the slow-consumer
+ * guard can still tell them apart and drop them first under backpressure. They may
+ * overtake events still waiting in the pending batch.
+ */
+@Slf4j
+@Component
+public class FrameBatchingInterceptor implements ChannelInterceptor {
+
+    public static final String BATCH_DESTINATION = "/user/queue/batch";
+
+    // Marks frames coming out of a session's lane, which pass through unchanged
+    private static final String LANE_HEADER = "socialchat.batch-lane";
+    private static final MimeType JSON = MimeTypeUtils.APPLICATION_JSON;
+    private static final Log LANE_LOG = LogFactory.getLog(FrameBatchingInterceptor.class);
+
+    private final ObjectMapper objectMapper;
+    private final TaskScheduler scheduler;
+
+    @Value("${app.websocket.batching.window-ms:20}")
+    private long windowMs;
+
+    @Value("${app.websocket.batching.max-events:64}")
+    private int maxEvents;
+
+    @Value("${app.websocket.batching.max-bytes:16384}")
+    private int maxBytes;
+
+    // Sessions that subscribed to the batch destination, kept until they disconnect
+    private final Map<String, Batch> batches = new ConcurrentHashMap<>();
+
+    // Flushes run on the broker's shared scheduler, which also drives heartbeats and idle sweeps
+    public FrameBatchingInterceptor(ObjectMapper objectMapper,
+                                    @Qualifier("messageBrokerTaskScheduler") @Lazy TaskScheduler scheduler) {
+        this.objectMapper = objectMapper;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        SimpMessageType messageType = SimpMessageHeaderAccessor.getMessageType(headers);
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        if (messageType == null || sessionId == null) {
+            return message;
+        }
+
+        switch (messageType) {
+            case SUBSCRIBE -> {
+                if (BATCH_DESTINATION.equals(SimpMessageHeaderAccessor.getDestination(headers))) {
+                    batches.computeIfAbsent(sessionId, Batch::new).start(SimpMessageHeaderAccessor.getSubscriptionId(headers));
+                    log.debug("Session {} switched to batched delivery", sessionId);
+                }
+            }
+            case UNSUBSCRIBE -> {
+                // The lane stays in use until disconnect, so frames already in it keep their place
+                Batch batch = batches.get(sessionId);
+                if (batch != null) {
+                    batch.stop(SimpMessageHeaderAccessor.getSubscriptionId(headers));
+                }
+            }
+            case DISCONNECT -> batches.remove(sessionId);
+            case MESSAGE -> {
+                Batch batch = batches.get(sessionId);
+                if (batch != null && !headers.containsKey(LANE_HEADER)) {
+                    batch.add(message, channel);
+                    return null;
+                }
+            }
+            default -> {
+                // nothing to do
+            }
+        }
+        return message;
+    }
+
+    // User destinations reach the session as /queue/x-user{session}; clients subscribed to the original
+    private static Object clientDestination(MessageHeaders headers) {
+        Object original = headers.get(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION);
+        return original != null ? original : SimpMessageHeaderAccessor.getDestination(headers);
+    }
+
+    private static MimeType contentType(Object header) {
+        if (header instanceof MimeType mimeType) {
+            return mimeType;
+        }
+        return header instanceof String value ? MimeTypeUtils.parseMimeType(value) : null;
+    }
+
+    // Headers are left mutable so the lane can attach its next-message callback
+    private static Message<?> laneMessage(Message<?> message) {
+        MessageHeaderAccessor accessor = MessageHeaderAccessor.getMutableAccessor(message);
+        accessor.setHeader(LANE_HEADER, Boolean.TRUE);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders());
+    }
+
+    private final class Batch {
+
+        private final String sessionId;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+
+        private String subscriptionId;
+        private MessageChannel lane;
+        private int count;
+        private long generation;
+
+        Batch(String sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        synchronized void start(String subscriptionId) {
+            this.subscriptionId = subscriptionId;
+        }
+
+        synchronized void stop(String subscriptionId) {
+            if (subscriptionId != null && subscriptionId.equals(this.subscriptionId)) {
+                flush();
+                this.subscriptionId = null;
+            }
+        }
+
+        /**
+         * Adds the frame to the batch, or sends it through the lane on its own if it cannot
+         * be batched, after flushing what is pending.
+         */
+        synchronized void add(Message<?> message, MessageChannel channel) {
+            if (lane == null) {
+                lane = new OrderedMessageChannelDecorator(channel, LANE_LOG);
+            }
+
+            MessageHeaders headers = message.getHeaders();
+            if (PrioritizedSendSessionDecorator.isLowPriorityDestination(String.valueOf(clientDestination(headers)))) {
+                lane.send(laneMessage(message));
+                return;
+            }
+
+            MimeType contentType = contentType(headers.get(MessageHeaders.CONTENT_TYPE));
+            if (subscriptionId == null || !(message.getPayload() instanceof byte[] payload)
+                    || contentType == null || !JSON.isCompatibleWith(contentType)) {
+                flush();
+                lane.send(laneMessage(message));
+                return;
+            }
+
+            byte[] destination;
+            byte[] subscription;
+            try {
+                destination = objectMapper.writeValueAsBytes(clientDestination(headers));
+                subscription = objectMapper.writeValueAsBytes(SimpMessageHeaderAccessor.getSubscriptionId(headers));
+            } catch (JsonProcessingException e) {
+                log.warn("Could not batch frame for session {}: {}", sessionId, e.getMessage());
+                flush();
+                lane.send(laneMessage(message));
+                return;
+            }
+
+            buffer.write(count == 0 ? '[' : ',');
+            buffer.writeBytes("{\"destination\":".getBytes(StandardCharsets.UTF_8));
+            buffer.writeBytes(destination);
+            buffer.writeBytes(",\"subscription\":".getBytes(StandardCharsets.UTF_8));
+            buffer.writeBytes(subscription);
+            String offset = NativeMessageHeaderAccessor.getFirstNativeHeader(WebSocketService.JOURNAL_OFFSET_HEADER, headers);
+            if (offset != null) {
+                buffer.writeBytes(",\"offset\":".getBytes(StandardCharsets.UTF_8));
+                buffer.writeBytes(offset.getBytes(StandardCharsets.UTF_8));
+            }
+            String resume = NativeMessageHeaderAccessor.getFirstNativeHeader(WebSocketService.JOURNAL_RESUME_HEADER, headers);
+            if (resume != null) {
+                buffer.writeBytes(",\"resume\":".getBytes(StandardCharsets.UTF_8));
+                buffer.writeBytes(resume.getBytes(StandardCharsets.UTF_8));
+            }
+            buffer.writeBytes(",\"body\":".getBytes(StandardCharsets.UTF_8));
+            buffer.writeBytes(payload);
+            buffer.write('}');
+
+            count++;
+            if (count >= maxEvents || buffer.size() >= maxBytes) {
+                flush();
+            } else if (count == 1) {
+                long scheduledGeneration = generation;
+                scheduler.schedule(() -> flushIfCurrent(scheduledGeneration), Instant.now().plusMillis(windowMs));
+            }
+        }
+
+        private synchronized void flushIfCurrent(long scheduledGeneration) {
+            if (generation == scheduledGeneration) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (count == 0) {
+                return;
+            }
+            buffer.write(']');
+            byte[] payload = buffer.toByteArray();
+            buffer.reset();
+            count = 0;
+            generation++;
+
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setSessionId(sessionId);
+            accessor.setSubscriptionId(subscriptionId);
+            accessor.setDestination(BATCH_DESTINATION);
+            accessor.setContentType(JSON);
+            accessor.setHeader(LANE_HEADER, Boolean.TRUE);
+            accessor.setLeaveMutable(true);
+            lane.send(MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+        }
+    }
+}
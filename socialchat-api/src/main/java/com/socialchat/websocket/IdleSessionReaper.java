@@ -0,0 +1,144 @@
+package com.socialchat.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.PongMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Closes native WebSocket sessions whose client has gone silent, such as half-open TCP
+ * connections left behind by mobile networks.
+ *
+ * Any inbound frame counts as activity: STOMP frames, STOMP heartbeats and WebSocket
+ * pongs. A session quiet for {@code ping-after-ms} is sent a WebSocket ping, which
+ * browsers and WebSocket libraries answer without application code, so clients that
+ * negotiated no STOMP heartbeats are still checked. A session quiet for
+ * {@code timeout-ms} is closed, and the usual disconnect handling releases its presence.
+ *
+ * One sweep every {@code sweep-interval-ms} on the broker's shared task scheduler covers
+ * all sessions. SockJS sessions are skipped: they cannot carry pings and SockJS has its
+ * own heartbeats and disconnect detection.
+ */
+@Slf4j
+@Component
+public class IdleSessionReaper implements WebSocketHandlerDecoratorFactory {
+
+    private final TaskScheduler scheduler;
+    private final Map<String, Tracked> sessions = new ConcurrentHashMap<>();
+    private final Counter reaped;
+
+    @Value("${app.websocket.idle.ping-after-ms:30000}")
+    private long pingAfterMs;
+
+    @Value("${app.websocket.idle.timeout-ms:75000}")
+    private long timeoutMs;
+
+    @Value("${app.websocket.idle.sweep-interval-ms:10000}")
+    private long sweepIntervalMs;
+
+    public IdleSessionReaper(@Qualifier("messageBrokerTaskScheduler") @Lazy TaskScheduler scheduler,
+                             MeterRegistry meterRegistry) {
+        this.scheduler = scheduler;
+        this.reaped = Counter.builder("websocket.sessions.reaped")
+                .description("Sessions closed because the client stopped sending anything")
+                .register(meterRegistry);
+    }
+
+    // Started once the context is up; the scheduler belongs to the broker configuration
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (timeoutMs <= 0) {
+            log.info("Idle WebSocket session reaping disabled");
+            return;
+        }
+        scheduler.scheduleAtFixedRate(this::sweep, Duration.ofMillis(sweepIntervalMs));
+        log.info("Reaping WebSocket sessions idle for {} ms (ping after {} ms)", timeoutMs, pingAfterMs);
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                if (!(WebSocketSessionDecorator.unwrap(session) instanceof SockJsSession)) {
+                    sessions.put(session.getId(), new Tracked(session));
+                }
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+                Tracked tracked = sessions.get(session.getId());
+                if (tracked != null) {
+                    tracked.lastInbound = System.currentTimeMillis();
+                }
+                // Pongs only prove the connection is alive; STOMP has nothing to do with them
+                if (!(message instanceof PongMessage)) {
+                    super.handleMessage(session, message);
+                }
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    void sweep() {
+        long now = System.currentTimeMillis();
+        for (Tracked tracked : sessions.values()) {
+            long idle = now - tracked.lastInbound;
+            try {
+                if (idle >= timeoutMs) {
+                    reap(tracked, idle);
+                } else if (idle >= pingAfterMs) {
+                    tracked.session.sendMessage(new PingMessage());
+                }
+            } catch (IOException | RuntimeException e) {
+                log.debug("Idle check of WebSocket session {} failed: {}", tracked.session.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private void reap(Tracked tracked, long idleMs) throws IOException {
+        if (sessions.remove(tracked.session.getId()) == null) {
+            return;
+        }
+        reaped.increment();
+        log.debug("Closing WebSocket session {}: nothing received for {} ms", tracked.session.getId(), idleMs);
+        tracked.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    private static final class Tracked {
+
+        private final WebSocketSession session;
+        private volatile long lastInbound = System.currentTimeMillis();
+
+        Tracked(WebSocketSession session) {
+            this.session = session;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.socialchat.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.broker.AbstractSubscriptionRegistry;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.PathMatcher;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Subscription registry for the in-process broker that indexes exact destinations in a hash map.
+ *
+ * Almost every destination in this application is exact (/topic/conversations/42/messages,
+ * /queue/notifications-user{session}), so a send is a single map lookup and the broker then
+ * iterates only that topic's subscribers. The result is returned as a live view rather than a
+ * copy, making send cost O(subscribers of the topic) regardless of total subscription count.
+ * Pattern subscriptions are kept in a separate, usually empty, map and only consulted when present.
+ *
+ * STOMP selector headers are not supported.
+ */
+@Slf4j
+public class IndexedSubscriptionRegistry extends AbstractSubscriptionRegistry {
+
+    private static final MultiValueMap<String, String> NO_SUBSCRIPTIONS =
+            CollectionUtils.unmodifiableMultiValueMap(new LinkedMultiValueMap<>());
+
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+
+    // Map<destination, Map<sessionId, subscriptionIds>>
+    private final Map<String, Map<String, List<String>>> exactSubscriptions = new ConcurrentHashMap<>();
+
+    // Map<pattern, Map<sessionId, subscriptionIds>>
+    private final Map<String, Map<String, List<String>>> patternSubscriptions = new ConcurrentHashMap<>();
+
+    // Map<sessionId, Map<subscriptionId, destination>> - used for unsubscribe and disconnect
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+
+    @Override
+    protected void addSubscriptionInternal(String sessionId, String subscriptionId,
+                                           String destination, Message<?> message) {
+        // A reused subscription id replaces its previous destination
+        String previous = sessions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+                .put(subscriptionId, destination);
+        if (previous != null) {
+            removeFromIndex(previous, sessionId, subscriptionId);
+        }
+
+        indexFor(destination).compute(destination, (key, bySession) -> {
+            Map<String, List<String>> target = bySession != null ? bySession : new ConcurrentHashMap<>();
+            target.computeIfAbsent(sessionId, id -> new CopyOnWriteArrayList<>()).add(subscriptionId);
+            return target;
+        });
+    }
+
+    @Override
+    protected void removeSubscriptionInternal(String sessionId, String subscriptionId, Message<?> message) {
+        Map<String, String> subscriptions = sessions.get(sessionId);
+        if (subscriptions == null) {
+            return;
+        }
+
+        String destination = subscriptions.remove(subscriptionId);
+        if (destination != null) {
+            removeFromIndex(destination, sessionId, subscriptionId);
+        }
+    }
+
+    @Override
+    public void unregisterAllSubscriptions(String sessionId) {
+        Map<String, String> subscriptions = sessions.remove(sessionId);
+        if (subscriptions == null) {
+            return;
+        }
+
+        subscriptions.forEach((subscriptionId, destination) ->
+                removeFromIndex(destination, sessionId, subscriptionId));
+    }
+
+    @Override
+    protected MultiValueMap<String, String> findSubscriptionsInternal(String destination, Message<?> message) {
+        Map<String, List<String>> exact = exactSubscriptions.get(destination);
+
+        if (patternSubscriptions.isEmpty()) {
+            return exact != null ? CollectionUtils.toMultiValueMap(exact) : NO_SUBSCRIPTIONS;
+        }
+
+        // Slow path: merge exact subscribers with any matching pattern subscribers
+        MultiValueMap<String, String> result = new LinkedMultiValueMap<>();
+        if (exact != null) {
+            exact.forEach(result::addAll);
+        }
+        patternSubscriptions.forEach((pattern, bySession) -> {
+            if (pathMatcher.match(pattern, destination)) {
+                bySession.forEach(result::addAll);
+            }
+        });
+        return result;
+    }
+
+    public int getDestinationCount() {
+        return exactSubscriptions.size() + patternSubscriptions.size();
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    private void removeFromIndex(String destination, String sessionId, String subscriptionId) {
+        indexFor(destination).computeIfPresent(destination, (key, bySession) -> {
+            List<String> ids = bySession.get(sessionId);
+            if (ids != null) {
+                ids.remove(subscriptionId);
+                if (ids.isEmpty()) {
+                    bySession.remove(sessionId);
+                }
+            }
+            return bySession.isEmpty() ? null : bySession;
+        });
+    }
+
+    private Map<String, Map<String, List<String>>> indexFor(String destination) {
+        return pathMatcher.isPattern(destination) ? patternSubscriptions : exactSubscriptions;
+    }
+}
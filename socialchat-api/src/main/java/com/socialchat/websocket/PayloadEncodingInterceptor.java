@@ -0,0 +1,181 @@
+package com.socialchat.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Re-encodes outbound JSON payloads for sessions that negotiated a binary format.
+ *
+ * Registered on both client channels: on the inbound side it records the format from
+ * the CONNECT frame and forgets it on DISCONNECT; on the outbound side it rewrites
+ * MESSAGE frames for those sessions. Sessions that did not opt in are passed through
+ * untouched, so JSON clients pay nothing.
+ *
+ * Binary payloads need binary WebSocket frames, which the STOMP handler only uses for
+ * application/octet-stream content, so re-encoded frames carry that content type plus a
+ * {@code payload-format: cbor} header. SockJS can only carry text; a CBOR request on a
+ * SockJS session is ignored and the session stays on JSON.
+ *
+ * Payloads are normally encoded as CBOR once, when the message is converted
+ * ({@link CborAttachingMessageConverter}), and swapped in here. Frames without that copy,
+ * such as those from an external broker or batches, are converted from their JSON bytes;
+ * a topic fan-out hands the same array to every subscriber on one thread, so the last
+ * such conversion is kept per thread and reused while the source array is the same.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PayloadEncodingInterceptor implements ChannelInterceptor {
+
+    private static final MimeType JSON = PayloadFormat.JSON.getMimeType();
+    private static final String NATIVE_TRANSPORT_ATTRIBUTE = "payloadEncoding.nativeTransport";
+
+    private final ObjectMapper objectMapper;
+    private final CBORMapper cborMapper = new CBORMapper();
+
+    // Only sessions with a non-default format are tracked
+    private final Map<String, PayloadFormat> sessionFormats = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<Encoded> lastEncoded = new ThreadLocal<>();
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageType messageType = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (messageType == null || sessionId == null) {
+            return message;
+        }
+
+        switch (messageType) {
+            case CONNECT -> registerFormat(message, sessionId);
+            case DISCONNECT -> sessionFormats.remove(sessionId);
+            case MESSAGE -> {
+                PayloadFormat format = sessionFormats.get(sessionId);
+                if (format == PayloadFormat.CBOR) {
+                    return toCbor(message);
+                }
+            }
+            default -> {
+                // nothing to do
+            }
+        }
+        return message;
+    }
+
+    public PayloadFormat getFormat(String sessionId) {
+        return sessionFormats.getOrDefault(sessionId, PayloadFormat.JSON);
+    }
+
+    /**
+     * Whether any connected session receives CBOR, i.e. whether converting payloads to
+     * CBOR up front is worth it.
+     */
+    public boolean isCborInUse() {
+        return !sessionFormats.isEmpty();
+    }
+
+    private void registerFormat(Message<?> message, String sessionId) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.CONNECT.equals(accessor.getCommand())) {
+            return;
+        }
+
+        PayloadFormat format = PayloadFormat.fromHeader(accessor.getFirstNativeHeader(PayloadFormat.CONNECT_HEADER));
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        boolean nativeTransport = attributes != null && attributes.containsKey(NATIVE_TRANSPORT_ATTRIBUTE);
+        if (format != PayloadFormat.JSON && !nativeTransport) {
+            log.debug("Session {} asked for {} over SockJS, keeping JSON", sessionId, format);
+            return;
+        }
+        if (format != PayloadFormat.JSON) {
+            sessionFormats.put(sessionId, format);
+            log.debug("Session {} negotiated {} payloads", sessionId, format);
+        }
+    }
+
+    private Message<?> toCbor(Message<?> message) {
+        if (!(message.getPayload() instanceof byte[] source) || source.length == 0) {
+            return message;
+        }
+
+        MimeType contentType = contentType(message.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+        if (contentType != null && !JSON.isCompatibleWith(contentType)) {
+            return message;
+        }
+
+        byte[] encoded;
+        Encoded cached = lastEncoded.get();
+        if (message.getHeaders().get(CborAttachingMessageConverter.CBOR_PAYLOAD_HEADER) instanceof byte[] attached) {
+            encoded = attached;
+        } else if (cached != null && cached.source() == source) {
+            encoded = cached.encoded();
+        } else {
+            try {
+                JsonNode tree = objectMapper.readTree(source);
+                encoded = cborMapper.writeValueAsBytes(tree);
+            } catch (IOException e) {
+                log.warn("Could not re-encode payload as CBOR, sending JSON: {}", e.getMessage());
+                return message;
+            }
+            lastEncoded.set(new Encoded(source, encoded));
+        }
+
+        SimpMessageHeaderAccessor accessor = MessageHeaderAccessor.getMutableAccessor(message) instanceof SimpMessageHeaderAccessor simp
+                ? simp : SimpMessageHeaderAccessor.wrap(message);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        accessor.setNativeHeader(PayloadFormat.CONNECT_HEADER, PayloadFormat.CBOR.getHeaderValue());
+        return MessageBuilder.createMessage(encoded, accessor.getMessageHeaders());
+    }
+
+    /**
+     * Marks sessions opened on the native endpoint; only those can receive binary frames.
+     */
+    public static HandshakeInterceptor nativeTransportMarker() {
+        return new HandshakeInterceptor() {
+            @Override
+            public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                    WebSocketHandler wsHandler, Map<String, Object> attributes) {
+                attributes.put(NATIVE_TRANSPORT_ATTRIBUTE, Boolean.TRUE);
+                return true;
+            }
+
+            @Override
+            public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                    WebSocketHandler wsHandler, Exception exception) {
+            }
+        };
+    }
+
+    private static MimeType contentType(Object header) {
+        if (header instanceof MimeType mimeType) {
+            return mimeType;
+        }
+        return header instanceof String value ? MimeTypeUtils.parseMimeType(value) : null;
+    }
+
+    private record Encoded(byte[] source, byte[] encoded) {}
+}
@@ -0,0 +1,42 @@
+package com.socialchat.websocket;
+
+import org.springframework.util.MimeType;
+
+/**
+ * Payload encodings a STOMP client can ask for with the {@code payload-format}
+ * CONNECT header. JSON is the default when the header is missing or unknown.
+ */
+public enum PayloadFormat {
+
+    JSON("json", new MimeType("application", "json")),
+    CBOR("cbor", new MimeType("application", "cbor"));
+
+    public static final String CONNECT_HEADER = "payload-format";
+
+    private final String headerValue;
+    private final MimeType mimeType;
+
+    PayloadFormat(String headerValue, MimeType mimeType) {
+        this.headerValue = headerValue;
+        this.mimeType = mimeType;
+    }
+
+    public String getHeaderValue() {
+        return headerValue;
+    }
+
+    public MimeType getMimeType() {
+        return mimeType;
+    }
+
+    public static PayloadFormat fromHeader(String value) {
+        if (value != null) {
+            for (PayloadFormat format : values()) {
+                if (format.headerValue.equalsIgnoreCase(value.trim())) {
+                    return format;
+                }
+            }
+        }
+        return JSON;
+    }
+}
@@ -0,0 +1,239 @@
+package com.socialchat.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * Session wrapper with a bounded outbound queue; see {@link SlowConsumerGuard}.
+ *
+ * Frames are written in order by a single drain task. Priority is read from the STOMP
+ * destination header of the encoded frame, which is enough to tell typing and presence
+ * events apart from chat traffic without touching the payload.
+ */
+@Slf4j
+final class PrioritizedSendSessionDecorator extends WebSocketSessionDecorator {
+
+    // Header section is scanned only this far; destinations are short
+    private static final int HEADER_SCAN_LIMIT = 512;
+
+    private final SlowConsumerGuard guard;
+    private final Deque<Pending> queue = new ArrayDeque<>();
+    private final Object lock = new Object();
+
+    private long queuedBytes;
+    private long sendStartedAt;
+    private boolean draining;
+    private boolean closed;
+    private CloseStatus pendingClose;
+
+    PrioritizedSendSessionDecorator(WebSocketSession delegate, SlowConsumerGuard guard) {
+        super(delegate);
+        this.guard = guard;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        boolean lowPriority = isLowPriority(message);
+        int size = message.getPayloadLength();
+        boolean startDrain = false;
+        boolean timedOut = false;
+        long overflowBytes = -1;
+        long evicted = 0;
+
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+
+            long elapsed = draining ? System.currentTimeMillis() - sendStartedAt : 0;
+            if (elapsed > guard.getSendTimeLimitMs()) {
+                timedOut = true;
+            } else if (pendingClose != null) {
+                return;
+            } else if (lowPriority && queuedBytes >= guard.getLowPriorityLimit()) {
+                guard.onDropped();
+                return;
+            } else {
+                if (queuedBytes + size > guard.getSendBufferLimit()) {
+                    evicted = evictLowPriority();
+                }
+                if (queuedBytes + size > guard.getSendBufferLimit()) {
+                    overflowBytes = queuedBytes + size;
+                }
+            }
+
+            if (timedOut || overflowBytes >= 0) {
+                evicted += clear();
+                closed = true;
+            } else {
+                queue.addLast(new Pending(message, size, lowPriority));
+                queuedBytes += size;
+                if (!draining) {
+                    draining = true;
+                    sendStartedAt = System.currentTimeMillis();
+                    startDrain = true;
+                }
+            }
+        }
+
+        guard.onQueued(timedOut || overflowBytes >= 0 ? -evicted : size - evicted);
+
+        if (timedOut) {
+            guard.onTimeOverflow(getId(), System.currentTimeMillis() - sendStartedAt);
+            closeDelegate(CloseStatus.SESSION_NOT_RELIABLE);
+        } else if (overflowBytes >= 0) {
+            guard.onBufferOverflow(getId(), overflowBytes);
+            closeDelegate(CloseStatus.SESSION_NOT_RELIABLE);
+        } else if (startDrain) {
+            guard.getSendExecutor().execute(this::drain);
+        }
+    }
+
+    /**
+     * Closes after queued frames are written, so an ERROR frame sent just before the
+     * close still reaches the client.
+     */
+    @Override
+    public void close(CloseStatus status) throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            if (draining) {
+                pendingClose = status;
+                return;
+            }
+            closed = true;
+        }
+        super.close(status);
+    }
+
+    void discard() {
+        long released;
+        synchronized (lock) {
+            closed = true;
+            released = clear();
+        }
+        guard.onQueued(-released);
+    }
+
+    private void drain() {
+        while (true) {
+            Pending next;
+            CloseStatus closeStatus = null;
+            synchronized (lock) {
+                next = closed ? null : queue.pollFirst();
+                if (next == null) {
+                    draining = false;
+                    if (pendingClose != null && !closed) {
+                        closeStatus = pendingClose;
+                        closed = true;
+                    }
+                } else {
+                    queuedBytes -= next.size();
+                    sendStartedAt = System.currentTimeMillis();
+                }
+            }
+
+            if (next == null) {
+                if (closeStatus != null) {
+                    closeDelegate(closeStatus);
+                }
+                return;
+            }
+
+            guard.onQueued(-next.size());
+            try {
+                getDelegate().sendMessage(next.message());
+            } catch (IOException | RuntimeException e) {
+                log.debug("Send to WebSocket session {} failed: {}", getId(), e.getMessage());
+                discard();
+                synchronized (lock) {
+                    draining = false;
+                }
+                return;
+            }
+        }
+    }
+
+    private long evictLowPriority() {
+        long released = 0;
+        Iterator<Pending> it = queue.iterator();
+        while (it.hasNext()) {
+            Pending pending = it.next();
+            if (pending.lowPriority()) {
+                it.remove();
+                released += pending.size();
+                guard.onDropped();
+            }
+        }
+        queuedBytes -= released;
+        return released;
+    }
+
+    private long clear() {
+        long released = queuedBytes;
+        queue.clear();
+        queuedBytes = 0;
+        return released;
+    }
+
+    private void closeDelegate(CloseStatus status) {
+        try {
+            getDelegate().close(status);
+        } catch (IOException e) {
+            log.debug("Failed to close WebSocket session {}: {}", getId(), e.getMessage());
+        }
+    }
+
+    private static boolean isLowPriority(WebSocketMessage<?> message) {
+        String head;
+        if (message instanceof TextMessage text) {
+            String payload = text.getPayload();
+            head = payload.length() > HEADER_SCAN_LIMIT ? payload.substring(0, HEADER_SCAN_LIMIT) : payload;
+        } else if (message instanceof BinaryMessage binary) {
+            ByteBuffer buffer = binary.getPayload().duplicate();
+            byte[] bytes = new byte[Math.min(buffer.remaining(), HEADER_SCAN_LIMIT)];
+            buffer.get(bytes);
+            head = new String(bytes, StandardCharsets.ISO_8859_1);
+        } else {
+            return false;
+        }
+
+        if (!head.startsWith("MESSAGE\n")) {
+            return false;
+        }
+
+        int start = head.indexOf("\ndestination:");
+        if (start < 0) {
+            return false;
+        }
+        start += "\ndestination:".length();
+        int end = head.indexOf('\n', start);
+        String destination = end < 0 ? head.substring(start) : head.substring(start, end);
+
+        return isLowPriorityDestination(destination);
+    }
+
+    /**
+     * Typing and presence: frames that may be dropped under backpressure. Also used by
+     * {@link FrameBatchingInterceptor} to keep them out of batches.
+     */
+    static boolean isLowPriorityDestination(String destination) {
+        return destination.endsWith("/typing") || destination.endsWith("/queue/presence");
+    }
+
+    private record Pending(WebSocketMessage<?> message, int size, boolean lowPriority) {}
+}
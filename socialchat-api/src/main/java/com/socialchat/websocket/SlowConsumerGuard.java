@@ -0,0 +1,117 @@
+package com.socialchat.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounds what a slow client can cost the server.
+ *
+ * Every WebSocket session gets a {@link PrioritizedSendSessionDecorator}: sends return
+ * immediately and a virtual thread per busy session does the blocking socket writes, so
+ * broker and outbound channel threads never wait on a client. Once a session has
+ * {@code low-priority-limit-bytes} queued, typing and presence frames are dropped; past
+ * {@code send-buffer-limit-bytes}, queued low-priority frames are evicted first and the
+ * session is closed only if chat traffic alone still does not fit. A write that takes
+ * longer than {@code send-time-limit-ms} also closes the session.
+ */
+@Slf4j
+@Component
+public class SlowConsumerGuard implements WebSocketHandlerDecoratorFactory {
+
+    @Getter
+    @Value("${app.websocket.outbound.send-buffer-limit-bytes:524288}")
+    private int sendBufferLimit;
+
+    @Getter
+    @Value("${app.websocket.outbound.low-priority-limit-bytes:65536}")
+    private int lowPriorityLimit;
+
+    @Getter
+    @Value("${app.websocket.outbound.send-time-limit-ms:10000}")
+    private long sendTimeLimitMs;
+
+    private final Executor sendExecutor = new VirtualThreadTaskExecutor("ws-send-");
+    private final Map<String, PrioritizedSendSessionDecorator> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong queuedBytes = new AtomicLong();
+
+    private final Counter droppedFrames;
+    private final Counter bufferOverflows;
+    private final Counter timeOverflows;
+
+    public SlowConsumerGuard(MeterRegistry meterRegistry) {
+        this.droppedFrames = Counter.builder("websocket.outbound.dropped")
+                .description("Low-priority frames (typing, presence) dropped for slow sessions")
+                .register(meterRegistry);
+        this.bufferOverflows = Counter.builder("websocket.outbound.overflow")
+                .tag("reason", "buffer")
+                .description("Sessions closed because their send buffer overflowed")
+                .register(meterRegistry);
+        this.timeOverflows = Counter.builder("websocket.outbound.overflow")
+                .tag("reason", "time")
+                .description("Sessions closed because a send exceeded the time limit")
+                .register(meterRegistry);
+        Gauge.builder("websocket.outbound.queued.bytes", queuedBytes, AtomicLong::get)
+                .description("Bytes waiting to be written across all sessions")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                PrioritizedSendSessionDecorator decorated = new PrioritizedSendSessionDecorator(session, SlowConsumerGuard.this);
+                sessions.put(session.getId(), decorated);
+                super.afterConnectionEstablished(decorated);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                PrioritizedSendSessionDecorator decorated = sessions.remove(session.getId());
+                if (decorated != null) {
+                    decorated.discard();
+                    session = decorated;
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    Executor getSendExecutor() {
+        return sendExecutor;
+    }
+
+    void onQueued(long delta) {
+        queuedBytes.addAndGet(delta);
+    }
+
+    void onDropped() {
+        droppedFrames.increment();
+    }
+
+    void onBufferOverflow(String sessionId, long bufferedBytes) {
+        bufferOverflows.increment();
+        log.warn("Closing slow WebSocket session {}: {} bytes buffered exceeds {}", sessionId, bufferedBytes, sendBufferLimit);
+    }
+
+    void onTimeOverflow(String sessionId, long elapsedMs) {
+        timeOverflows.increment();
+        log.warn("Closing slow WebSocket session {}: send blocked for {} ms", sessionId, elapsedMs);
+    }
+}
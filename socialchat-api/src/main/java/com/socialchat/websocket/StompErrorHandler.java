@@ -0,0 +1,44 @@
+package com.socialchat.websocket;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.StompSubProtocolErrorHandler;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Adds a {@code retry-after} header to ERROR frames for rejected connections, so clients
+ * back off instead of reconnecting in a tight loop. Other errors keep the default frame.
+ */
+@Component
+public class StompErrorHandler extends StompSubProtocolErrorHandler {
+
+    public static final String RETRY_AFTER_HEADER = "retry-after";
+
+    @Override
+    public Message<byte[]> handleClientMessageProcessingError(Message<byte[]> clientMessage, Throwable ex) {
+        ConnectionRejectedException rejection = findRejection(ex);
+        if (rejection == null) {
+            return super.handleClientMessageProcessingError(clientMessage, ex);
+        }
+
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.ERROR);
+        accessor.setMessage(rejection.getMessage());
+        accessor.setNativeHeader(RETRY_AFTER_HEADER, String.valueOf(rejection.getRetryAfterSeconds()));
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(rejection.getMessage().getBytes(StandardCharsets.UTF_8),
+                accessor.getMessageHeaders());
+    }
+
+    private static ConnectionRejectedException findRejection(Throwable ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof ConnectionRejectedException rejection) {
+                return rejection;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,126 @@
+package com.socialchat.websocket;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local STOMP sessions indexed by session id, user id and username.
+ *
+ * This is the source of truth for who is connected to this node: presence is derived
+ * from it and targeted delivery checks it before pushing. Every lookup is a single hash
+ * probe. A user may hold several sessions (tabs, devices); they are kept in a small
+ * copy-on-write array per user, since almost every user has one or two.
+ */
+@Component
+public class UserSessionRegistry {
+
+    private static final String[] NO_SESSIONS = new String[0];
+
+    // sessionId -> userId
+    private final Map<String, Long> userIdsBySession = new ConcurrentHashMap<>();
+    // userId -> username + session ids
+    private final Map<Long, UserSessions> sessionsByUser = new ConcurrentHashMap<>();
+    // username -> userId
+    private final Map<String, Long> userIdsByUsername = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a session. Returns true when this is the user's first session, i.e. the
+     * user just came online.
+     */
+    public boolean register(String sessionId, Long userId, String username) {
+        if (userIdsBySession.putIfAbsent(sessionId, userId) != null) {
+            return false;
+        }
+
+        boolean[] first = new boolean[1];
+        sessionsByUser.compute(userId, (id, current) -> {
+            if (current == null) {
+                first[0] = true;
+                userIdsByUsername.put(username, userId);
+                return new UserSessions(username, new String[]{sessionId});
+            }
+            return current.with(sessionId);
+        });
+        return first[0];
+    }
+
+    /**
+     * Removes a session. Returns the username when it was the user's last session, i.e.
+     * the user just went offline, otherwise null.
+     */
+    public String unregister(String sessionId) {
+        Long userId = userIdsBySession.remove(sessionId);
+        if (userId == null) {
+            return null;
+        }
+
+        String[] offline = new String[1];
+        sessionsByUser.computeIfPresent(userId, (id, current) -> {
+            UserSessions remaining = current.without(sessionId);
+            if (remaining.sessionIds().length == 0) {
+                offline[0] = current.username();
+                userIdsByUsername.remove(current.username(), userId);
+                return null;
+            }
+            return remaining;
+        });
+        return offline[0];
+    }
+
+    public boolean isOnline(Long userId) {
+        return userId != null && sessionsByUser.containsKey(userId);
+    }
+
+    public boolean isOnline(String username) {
+        return username != null && userIdsByUsername.containsKey(username);
+    }
+
+    public Long getUserId(String sessionId) {
+        return userIdsBySession.get(sessionId);
+    }
+
+    public String getUsername(Long userId) {
+        UserSessions sessions = sessionsByUser.get(userId);
+        return sessions != null ? sessions.username() : null;
+    }
+
+    public List<String> getSessionIds(Long userId) {
+        UserSessions sessions = sessionsByUser.get(userId);
+        return sessions != null ? List.of(sessions.sessionIds()) : List.of();
+    }
+
+    public int getOnlineUserCount() {
+        return sessionsByUser.size();
+    }
+
+    public int getSessionCount() {
+        return userIdsBySession.size();
+    }
+
+    private record UserSessions(String username, String[] sessionIds) {
+
+        UserSessions with(String sessionId) {
+            String[] ids = Arrays.copyOf(sessionIds, sessionIds.length + 1);
+            ids[sessionIds.length] = sessionId;
+            return new UserSessions(username, ids);
+        }
+
+        UserSessions without(String sessionId) {
+            int index = Arrays.asList(sessionIds).indexOf(sessionId);
+            if (index < 0) {
+                return this;
+            }
+            if (sessionIds.length == 1) {
+                return new UserSessions(username, NO_SESSIONS);
+            }
+            String[] ids = new String[sessionIds.length - 1];
+            System.arraycopy(sessionIds, 0, ids, 0, index);
+            System.arraycopy(sessionIds, index + 1, ids, index, ids.length - index);
+            return new UserSessions(username, ids);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+-- Per-user message reactions.
+-- emoji is compared in binary: utf8mb4_unicode_ci treats most emoji as equal to each other,
+-- which would merge different reactions in the unique keys below.
+CREATE TABLE message_reactions (
+                                   id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                                   message_id BIGINT NOT NULL,
+                                   user_id BIGINT NOT NULL,
+                                   emoji VARCHAR(32) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL,
+                                   created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                                   FOREIGN KEY (message_id) REFERENCES messages(id) ON DELETE CASCADE,
+                                   FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+                                   UNIQUE KEY unique_message_reaction (message_id, user_id, emoji),
+                                   INDEX idx_message_reactions_user (user_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Aggregated reaction counters, one row per (message, emoji)
+CREATE TABLE message_reaction_counts (
+                                         id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                                         message_id BIGINT NOT NULL,
+                                         emoji VARCHAR(32) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL,
+                                         reaction_count BIGINT NOT NULL DEFAULT 0,
+                                         FOREIGN KEY (message_id) REFERENCES messages(id) ON DELETE CASCADE,
+                                         UNIQUE KEY unique_message_reaction_count (message_id, emoji)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
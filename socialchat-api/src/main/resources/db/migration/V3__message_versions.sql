@@ -0,0 +1,16 @@
+-- Per-conversation change counter for delta sync
+ALTER TABLE conversations
+    ADD COLUMN message_version BIGINT NOT NULL DEFAULT 0;
+
+-- Message version stamps and tombstones
+ALTER TABLE messages
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN edited_at TIMESTAMP NULL,
+    ADD COLUMN deleted_at TIMESTAMP NULL,
+    ADD INDEX idx_messages_conversation_version (conversation_id, version);
+
+-- Backfill: ids are already monotonic within a conversation
+UPDATE messages SET version = id;
+
+UPDATE conversations c
+SET message_version = COALESCE((SELECT MAX(m.id) FROM messages m WHERE m.conversation_id = c.id), 0);
@@ -0,0 +1,3 @@
+-- Unread @mention counter kept alongside read state
+ALTER TABLE conversation_participants
+    ADD COLUMN unread_mention_count INT NOT NULL DEFAULT 0;
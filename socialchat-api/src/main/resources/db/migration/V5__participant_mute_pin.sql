@@ -0,0 +1,6 @@
+-- Per-participant notification and inbox settings
+ALTER TABLE conversation_participants
+    ADD COLUMN muted BOOLEAN NOT NULL DEFAULT FALSE,
+    ADD COLUMN pinned BOOLEAN NOT NULL DEFAULT FALSE,
+    -- Inbox ordering: pinned first, then by conversation activity
+    ADD INDEX idx_participants_user_pinned (user_id, pinned);
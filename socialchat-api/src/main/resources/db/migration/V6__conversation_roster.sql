@@ -0,0 +1,4 @@
+-- Group owner, allowed to remove other members
+ALTER TABLE conversations
+    ADD COLUMN created_by BIGINT NULL,
+    ADD CONSTRAINT fk_conversations_created_by FOREIGN KEY (created_by) REFERENCES users(id) ON DELETE SET NULL;
@@ -0,0 +1,11 @@
+-- Groups created before V6 have no owner: hand them to their earliest member, the same
+-- rule the application applies when an owner leaves or is deleted.
+-- updated_at is kept so the backfill does not reorder anyone's inbox.
+UPDATE conversations c
+    JOIN (SELECT conversation_id, MIN(id) AS first_participant_id
+          FROM conversation_participants
+          GROUP BY conversation_id) first_member ON first_member.conversation_id = c.id
+    JOIN conversation_participants p ON p.id = first_member.first_participant_id
+SET c.created_by = p.user_id,
+    c.updated_at = c.updated_at
+WHERE c.created_by IS NULL AND c.is_group = TRUE;
@@ -0,0 +1,211 @@
+package com.socialchat.cluster;
+
+import com.socialchat.SocialChatApplication;
+import com.socialchat.dto.chat.MessageRequest;
+import com.socialchat.dto.chat.MessageResponse;
+import com.socialchat.entity.Conversation;
+import com.socialchat.entity.ConversationParticipant;
+import com.socialchat.entity.User;
+import com.socialchat.gateway.GatewayCommands;
+import com.socialchat.repository.ConversationParticipantRepository;
+import com.socialchat.repository.ConversationRepository;
+import com.socialchat.repository.UserRepository;
+import com.socialchat.security.JwtService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two cluster nodes in one JVM on localhost, sharing one MySQL database: owner agreement,
+ * forwarding of REST requests and STOMP commands to the owner, and failover when the
+ * owner leaves.
+ */
+@Testcontainers
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ClusterModeTest {
+
+    @Container
+    static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    private static final HttpClient HTTP = HttpClient.newHttpClient();
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+    private static String urlA;
+    private static String urlB;
+    private static User alice;
+    private static String token;
+    // Owned by node b
+    private static Long conversationId;
+
+    @BeforeAll
+    static void startNodes() throws IOException {
+        int portA = freePort();
+        int portB = freePort();
+        urlA = "http://localhost:" + portA;
+        urlB = "http://localhost:" + portB;
+        String nodes = "a=" + urlA + ",b=" + urlB;
+        // One after the other, so only the first runs the migrations
+        nodeA = startNode("a", portA, nodes);
+        nodeB = startNode("b", portB, nodes);
+
+        alice = nodeA.getBean(UserRepository.class).save(User.builder()
+                .username("alice")
+                .email("alice@example.com")
+                .password("not-used")
+                .build());
+        token = nodeA.getBean(JwtService.class).generateAccessToken(alice.getId(), alice.getUsername(), List.of("USER"));
+
+        ClusterMembership membership = nodeA.getBean(ClusterMembership.class);
+        while (conversationId == null) {
+            Long id = createConversation();
+            if (urlB.equals(membership.ownerUrl(id))) {
+                conversationId = id;
+            }
+        }
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeB != null && nodeB.isActive()) {
+            nodeB.close();
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+    }
+
+    @Test
+    @Order(1)
+    void nodesAgreeOnEveryOwner() {
+        ClusterMembership a = nodeA.getBean(ClusterMembership.class);
+        ClusterMembership b = nodeB.getBean(ClusterMembership.class);
+
+        for (long id = 1; id <= 1_000; id++) {
+            String fromA = a.ownerUrl(id);
+            String fromB = b.ownerUrl(id);
+            if (fromA == null) {
+                assertThat(fromB).isEqualTo(urlA);
+            } else {
+                assertThat(fromA).isEqualTo(urlB);
+                assertThat(fromB).isNull();
+            }
+        }
+    }
+
+    @Test
+    @Order(2)
+    void restRequestIsServedByTheOwner() throws Exception {
+        HttpResponse<String> response = get(urlA, "/api/chat/conversations/" + conversationId + "/messages");
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(requestCount(nodeB, "/api/chat/conversations/{id}/messages")).isEqualTo(1);
+        assertThat(requestCount(nodeA, "/api/chat/conversations/{id}/messages")).isZero();
+    }
+
+    @Test
+    @Order(3)
+    void stompCommandIsForwardedToTheOwner() {
+        GatewayCommands commands = nodeA.getBean(GatewayCommands.class);
+
+        MessageResponse sent = commands.sendMessageFromWebSocket(conversationId, alice.getId(),
+                MessageRequest.builder().content("hello from a").build());
+
+        assertThat(sent.getContent()).isEqualTo("hello from a");
+        assertThat(sent.getConversationId()).isEqualTo(conversationId);
+        assertThat(requestCount(nodeB, ClusterClient.INTERNAL_PREFIX + "/conversations/{id}/messages")).isEqualTo(1);
+    }
+
+    @Test
+    @Order(4)
+    void conversationsMoveWhenTheOwnerLeaves() throws Exception {
+        ClusterMembership a = nodeA.getBean(ClusterMembership.class);
+        nodeB.close();
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (a.ownerUrl(conversationId) != null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertThat(a.ownerUrl(conversationId)).isNull();
+
+        HttpResponse<String> response = get(urlA, "/api/chat/conversations/" + conversationId + "/messages");
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).contains("hello from a");
+        assertThat(requestCount(nodeA, "/api/chat/conversations/{id}/messages")).isEqualTo(1);
+    }
+
+    private static ConfigurableApplicationContext startNode(String nodeId, int port, String nodes) {
+        // Command-line arguments, so they win over application.properties
+        return new SpringApplicationBuilder(SocialChatApplication.class).run(
+                "--server.port=" + port,
+                "--management.server.port=0",
+                "--spring.rsocket.server.port=0",
+                "--spring.datasource.url=" + MYSQL.getJdbcUrl(),
+                "--spring.datasource.username=" + MYSQL.getUsername(),
+                "--spring.datasource.password=" + MYSQL.getPassword(),
+                "--app.cluster.enabled=true",
+                "--app.cluster.node-id=" + nodeId,
+                "--app.cluster.nodes=" + nodes,
+                "--app.cluster.secret=test-secret",
+                "--app.cluster.probe-interval-ms=200",
+                "--app.cluster.probe-timeout-ms=200",
+                "--app.cluster.failure-threshold=2");
+    }
+
+    private static Long createConversation() {
+        Conversation conversation = nodeA.getBean(ConversationRepository.class).save(Conversation.builder()
+                .name("cluster test")
+                .isGroup(true)
+                .createdBy(alice.getId())
+                .build());
+        nodeA.getBean(ConversationParticipantRepository.class).save(ConversationParticipant.builder()
+                .conversation(conversation)
+                .user(alice)
+                .joinedAt(LocalDateTime.now())
+                .build());
+        return conversation.getId();
+    }
+
+    private static HttpResponse<String> get(String baseUrl, String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+        return HTTP.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    // Requests the node handled itself, by the URI template of the handler that served them
+    private static long requestCount(ConfigurableApplicationContext node, String uriTemplate) {
+        return node.getBean(MeterRegistry.class).find("http.server.requests").tag("uri", uriTemplate)
+                .timers().stream()
+                .mapToLong(Timer::count)
+                .sum();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.socialchat.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConsistentHashRingTest {
+
+    private static final int VIRTUAL_NODES = 160;
+    private static final int KEYS = 20_000;
+
+    @Test
+    void ownersDependOnlyOnMembership() {
+        ConsistentHashRing first = new ConsistentHashRing(List.of("a", "b", "c"), VIRTUAL_NODES);
+        ConsistentHashRing second = new ConsistentHashRing(List.of("c", "a", "b"), VIRTUAL_NODES);
+
+        for (long key = 1; key <= KEYS; key++) {
+            assertThat(second.ownerOf(key)).isEqualTo(first.ownerOf(key));
+        }
+    }
+
+    @Test
+    void keysSpreadOverAllNodes() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b", "c", "d"), VIRTUAL_NODES);
+        int[] counts = new int[4];
+
+        for (long key = 1; key <= KEYS; key++) {
+            counts[ring.ownerOf(key).charAt(0) - 'a']++;
+        }
+
+        for (int count : counts) {
+            assertThat(count).isBetween(KEYS / 4 * 3 / 4, KEYS / 4 * 5 / 4);
+        }
+    }
+
+    @Test
+    void joiningNodeTakesOnlyKeysThatMoveToIt() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("a", "b", "c"), VIRTUAL_NODES);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("a", "b", "c", "d"), VIRTUAL_NODES);
+        int moved = 0;
+
+        for (long key = 1; key <= KEYS; key++) {
+            String oldOwner = before.ownerOf(key);
+            String newOwner = after.ownerOf(key);
+            if (!oldOwner.equals(newOwner)) {
+                assertThat(newOwner).isEqualTo("d");
+                moved++;
+            }
+        }
+
+        // About 1/4 of the keys move to the fourth node
+        assertThat(moved).isBetween(KEYS * 3 / 16, KEYS * 5 / 16);
+    }
+
+    @Test
+    void leavingNodeHandsOnOnlyItsOwnKeys() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("a", "b", "c", "d"), VIRTUAL_NODES);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("a", "b", "c"), VIRTUAL_NODES);
+
+        for (long key = 1; key <= KEYS; key++) {
+            String oldOwner = before.ownerOf(key);
+            if (!oldOwner.equals("d")) {
+                assertThat(after.ownerOf(key)).isEqualTo(oldOwner);
+            } else {
+                assertThat(after.ownerOf(key)).isIn("a", "b", "c");
+            }
+        }
+    }
+
+    @Test
+    void emptyRingHasNoOwner() {
+        ConsistentHashRing ring = new ConsistentHashRing(Set.of(), VIRTUAL_NODES);
+
+        assertThat(ring.isEmpty()).isTrue();
+        assertThat(ring.ownerOf(42)).isNull();
+    }
+}